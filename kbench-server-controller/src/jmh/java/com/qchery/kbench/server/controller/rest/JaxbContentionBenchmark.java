@@ -0,0 +1,94 @@
+package com.qchery.kbench.server.controller.rest;
+
+import org.kie.server.api.marshalling.Marshaller;
+import org.kie.server.api.marshalling.MarshallerFactory;
+import org.kie.server.api.marshalling.MarshallingFormat;
+import org.kie.server.api.model.KieContainerStatus;
+import org.kie.server.api.model.ReleaseId;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.kie.server.controller.api.model.spec.ServerTemplateKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshals a server template to XML from 1, 4 and 16 threads at once, as concurrent XML clients of the controller
+ * do. The marshaller of KIE creates a JAXB marshaller on every call, {@link ThreadLocalJaxbMarshaller} keeps one
+ * per thread over the same context, the throughput of both is compared as the threads grow.
+ *
+ * @author Chery
+ * @date 2026/10/18 21:50
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JaxbContentionBenchmark {
+
+    @Param({"kie", "threadLocal"})
+    public String marshaller;
+
+    @Param({"10"})
+    public int containers;
+
+    private Marshaller jaxbMarshaller;
+    private ServerTemplate serverTemplate;
+
+    @Setup
+    public void setUp() {
+        final ClassLoader classLoader = ControllerUtils.class.getClassLoader();
+        jaxbMarshaller = "threadLocal".equals(marshaller)
+                ? new ThreadLocalJaxbMarshaller(ControllerUtils.getModelClasses(),
+                                                classLoader)
+                : MarshallerFactory.getMarshaller(ControllerUtils.getModelClasses(),
+                                                  MarshallingFormat.JAXB,
+                                                  classLoader);
+
+        serverTemplate = new ServerTemplate("template",
+                                            "Template");
+        for (int c = 0; c < containers; c++) {
+            serverTemplate.addContainerSpec(new ContainerSpec("container-" + c,
+                                                              "Container " + c,
+                                                              new ServerTemplateKey(serverTemplate.getId(),
+                                                                                    serverTemplate.getName()),
+                                                              new ReleaseId("com.qchery",
+                                                                            "container-" + c,
+                                                                            "1.0.0"),
+                                                              KieContainerStatus.STARTED,
+                                                              new HashMap<>()));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String threads01() {
+        return jaxbMarshaller.marshall(serverTemplate);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String threads04() {
+        return jaxbMarshaller.marshall(serverTemplate);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String threads16() {
+        return jaxbMarshaller.marshall(serverTemplate);
+    }
+}
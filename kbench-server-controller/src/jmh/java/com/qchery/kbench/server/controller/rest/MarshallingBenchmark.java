@@ -0,0 +1,126 @@
+package com.qchery.kbench.server.controller.rest;
+
+import org.kie.server.api.model.KieContainerStatus;
+import org.kie.server.api.model.KieScannerStatus;
+import org.kie.server.api.model.ReleaseId;
+import org.kie.server.controller.api.model.spec.Capability;
+import org.kie.server.controller.api.model.spec.ContainerConfig;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ProcessConfig;
+import org.kie.server.controller.api.model.spec.RuleConfig;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.kie.server.controller.api.model.spec.ServerTemplateKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marshals a server template with up to hundreds of containers the ways a response body can be built. Run it
+ * with the GC profiler, ie., -Pjmh='MarshallingBenchmark -prof gc', the allocation per operation is what it
+ * is about:
+ * <ul>
+ * <li>{@link #string} builds the body as a string and encodes it, as the endpoints did</li>
+ * <li>{@link #bytes} marshals into the byte array the endpoints and the response cache send</li>
+ * <li>{@link #stream} marshals into a stream which discards the bytes, which is all a response written while
+ * marshalling allocates</li>
+ * </ul>
+ * The JSON marshaller of the tree replaces the one of KIE, which built every collection element as a string of its
+ * own. Those are measured by running the benchmark on a tree from before the streaming marshaller.
+ *
+ * @author Chery
+ * @date 2026/10/18 21:40
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MarshallingBenchmark {
+
+    @Param({"JSON", "JAXB"})
+    public String format;
+
+    @Param({"10", "100", "500"})
+    public int containers;
+
+    private ServerTemplate serverTemplate;
+
+    @Setup
+    public void setUp() {
+        serverTemplate = new ServerTemplate("template",
+                                            "Template");
+        for (int c = 0; c < containers; c++) {
+            final Map<Capability, ContainerConfig> configs = new HashMap<>();
+            configs.put(Capability.RULE,
+                        new RuleConfig(1000L,
+                                       KieScannerStatus.STOPPED));
+            configs.put(Capability.PROCESS,
+                        new ProcessConfig("PER_PROCESS_INSTANCE",
+                                          "default",
+                                          "default",
+                                          "CONCURRENT"));
+            serverTemplate.addContainerSpec(new ContainerSpec("container-" + c,
+                                                              "Container " + c,
+                                                              new ServerTemplateKey(serverTemplate.getId(),
+                                                                                    serverTemplate.getName()),
+                                                              new ReleaseId("com.qchery",
+                                                                            "container-" + c,
+                                                                            "1.0.0"),
+                                                              KieContainerStatus.STARTED,
+                                                              configs));
+        }
+    }
+
+    @Benchmark
+    public byte[] string() {
+        return ControllerUtils.marshal(format,
+                                       serverTemplate).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] bytes() {
+        return ControllerUtils.marshalToBytes(format,
+                                              serverTemplate);
+    }
+
+    @Benchmark
+    public OutputStream stream() throws IOException {
+        final OutputStream os = new DiscardingOutputStream();
+        ControllerUtils.marshal(format,
+                                serverTemplate,
+                                os);
+        return os;
+    }
+
+    /**
+     * Takes the place of the response stream.
+     */
+    private static class DiscardingOutputStream extends OutputStream {
+
+        @Override
+        public void write(final int b) {
+        }
+
+        @Override
+        public void write(final byte[] b,
+                          final int off,
+                          final int len) {
+        }
+    }
+}
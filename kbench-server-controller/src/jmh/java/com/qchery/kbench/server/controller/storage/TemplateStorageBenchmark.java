@@ -0,0 +1,163 @@
+package com.qchery.kbench.server.controller.storage;
+
+import org.kie.server.api.model.KieContainerStatus;
+import org.kie.server.api.model.ReleaseId;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.kie.server.controller.api.model.spec.ServerTemplateKey;
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+import org.kie.server.controller.impl.storage.InMemoryKieServerTemplateStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Polls and changes the server templates from every core, with a share of changes ranging from none, as with
+ * dashboards only, to half of the requests. Reads list the templates or load one of them, as the REST endpoints
+ * do; writes start or stop a container of a template.
+ * <p>
+ * The in-memory storage of KIE is the baseline, its reads and writes synchronize on one map and writers change
+ * the shared template in place. The journaled storage is read directly, the way the endpoints read it, and
+ * written through a {@link CopyingKieServerTemplateStorage}, the way the controller services write it.
+ *
+ * @author Chery
+ * @date 2026/10/18 21:20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(Threads.MAX)
+public class TemplateStorageBenchmark {
+
+    @Param({"inMemory", "journaled"})
+    public String storage;
+
+    // The share of the requests which change a template, in percent
+    @Param({"0", "1", "10", "50"})
+    public int writePercent;
+
+    @Param({"20"})
+    public int templates;
+
+    @Param({"50"})
+    public int containers;
+
+    private Path dir;
+    private KieServerTemplateStorage templateStorage;
+    private CopyingKieServerTemplateStorage writerStorage;
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("journaled".equals(storage)) {
+            dir = Files.createTempDirectory("kbench-templates");
+            final JournaledKieServerTemplateStorage journaled = new JournaledKieServerTemplateStorage(dir,
+                                                                                                       1000);
+            templateStorage = journaled;
+            writerStorage = new CopyingKieServerTemplateStorage(journaled);
+        } else {
+            final InMemoryKieServerTemplateStorage inMemory = InMemoryKieServerTemplateStorage.getInstance();
+            inMemory.clear();
+            templateStorage = inMemory;
+        }
+        for (int t = 0; t < templates; t++) {
+            templateStorage.store(template(t));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        templateStorage.close();
+        if (dir != null) {
+            try (Stream<Path> files = Files.walk(dir)) {
+                files.sorted(Comparator.reverseOrder())
+                        .map(Path::toFile)
+                        .forEach(File::delete);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object mixed() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String id = templateId(random.nextInt(templates));
+        if (random.nextInt(100) < writePercent) {
+            return changeStatus(id,
+                                containerId(random.nextInt(containers)),
+                                random.nextBoolean() ? KieContainerStatus.STARTED : KieContainerStatus.STOPPED);
+        }
+        return random.nextBoolean() ? templateStorage.load() : templateStorage.load(id);
+    }
+
+    private ServerTemplate changeStatus(final String serverTemplateId,
+                                        final String containerId,
+                                        final KieContainerStatus status) {
+        if (writerStorage == null) {
+            return changeStatus(templateStorage,
+                                serverTemplateId,
+                                containerId,
+                                status);
+        }
+        return writerStorage.write(serverTemplateId,
+                                   () -> changeStatus(writerStorage,
+                                                      serverTemplateId,
+                                                      containerId,
+                                                      status));
+    }
+
+    private static ServerTemplate changeStatus(final KieServerTemplateStorage storage,
+                                               final String serverTemplateId,
+                                               final String containerId,
+                                               final KieContainerStatus status) {
+        final ServerTemplate serverTemplate = storage.load(serverTemplateId);
+        serverTemplate.getContainerSpec(containerId).setStatus(status);
+        return storage.update(serverTemplate);
+    }
+
+    private ServerTemplate template(final int t) {
+        final ServerTemplate serverTemplate = new ServerTemplate(templateId(t),
+                                                                 "Template " + t);
+        for (int c = 0; c < containers; c++) {
+            serverTemplate.addContainerSpec(new ContainerSpec(containerId(c),
+                                                              "Container " + c,
+                                                              new ServerTemplateKey(serverTemplate.getId(),
+                                                                                    serverTemplate.getName()),
+                                                              new ReleaseId("com.qchery",
+                                                                            "container-" + c,
+                                                                            "1.0.0"),
+                                                              KieContainerStatus.STARTED,
+                                                              new HashMap<>()));
+        }
+        return serverTemplate;
+    }
+
+    private static String templateId(final int t) {
+        return "template-" + t;
+    }
+
+    private static String containerId(final int c) {
+        return "container-" + c;
+    }
+}
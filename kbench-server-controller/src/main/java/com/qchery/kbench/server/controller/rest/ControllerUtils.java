@@ -19,6 +19,7 @@ import org.kie.server.api.KieServerConstants;
 import org.kie.server.api.marshalling.Marshaller;
 import org.kie.server.api.marshalling.MarshallerFactory;
 import org.kie.server.api.marshalling.MarshallingFormat;
+import org.kie.server.api.marshalling.json.JSONMarshaller;
 import org.kie.server.api.model.Wrapped;
 import org.kie.server.common.KeyStoreHelperUtil;
 import org.kie.server.common.rest.RestEasy960Util;
@@ -26,18 +27,30 @@ import org.kie.server.controller.api.model.*;
 import org.kie.server.controller.api.model.runtime.*;
 import org.kie.server.controller.api.model.spec.*;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.Variant;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 public class ControllerUtils {
 
+    private static final int BUFFER_SIZE = 8192;
+    private static final org.springframework.http.MediaType XML_UTF_8 = new org.springframework.http.MediaType("application", "xml", StandardCharsets.UTF_8);
+    private static final org.springframework.http.MediaType JSON_UTF_8 = new org.springframework.http.MediaType("application", "json", StandardCharsets.UTF_8);
+
     private static Marshaller jsonMarshaller = MarshallerFactory.getMarshaller(null, MarshallingFormat.JSON, ControllerUtils.class.getClassLoader());
-    private static Marshaller jaxbMarshaller = MarshallerFactory.getMarshaller(getModelClasses(), MarshallingFormat.JAXB, ControllerUtils.class.getClassLoader());
+    private static ThreadLocalJaxbMarshaller jaxbMarshaller = new ThreadLocalJaxbMarshaller(getModelClasses(), ControllerUtils.class.getClassLoader());
 
     public static Set<Class<?>> getModelClasses() {
         Set<Class<?>> modelClasses = new HashSet<Class<?>>();
@@ -202,6 +215,61 @@ public class ControllerUtils {
 
     }
 
+    /**
+     * Marshals the entity straight into the stream as UTF-8, without building the response as a string first.
+     * The stream is left open.
+     */
+    public static void marshal(String marshallingFormat, Object entity, OutputStream outputStream) throws IOException {
+        MarshallingFormat format = getFormat(marshallingFormat);
+
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown marshalling format " + marshallingFormat);
+        }
+
+        if (format == MarshallingFormat.JAXB) {
+            jaxbMarshaller.marshall(entity, outputStream);
+        } else if (jsonMarshaller instanceof JSONMarshaller) {
+            ((JSONMarshaller) jsonMarshaller).marshall(entity, outputStream);
+        } else {
+            outputStream.write(marshal(marshallingFormat, entity).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Marshals the entity into a response body, UTF-8 encoded as {@link #getResponseType(String)} declares it.
+     * The body is sent as is, unlike a string which the response converts once more.
+     */
+    public static byte[] marshalToBytes(String marshallingFormat, Object entity) {
+        ByteArrayOutputStream os = new ByteArrayOutputStream(BUFFER_SIZE);
+        try {
+            marshal(marshallingFormat, entity, os);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * @return the Content-Type of an entity marshalled in the format, XML for JAXB and JSON for every other format
+     */
+    public static org.springframework.http.MediaType getResponseType(String marshallingFormat) {
+        MarshallingFormat format = getFormat(marshallingFormat);
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown marshalling format " + marshallingFormat);
+        }
+
+        return format == MarshallingFormat.JAXB ? XML_UTF_8 : JSON_UTF_8;
+    }
+
+    /**
+     * @return a response with the plain text message as its body, for the endpoints which respond with bytes
+     */
+    public static ResponseEntity<byte[]> textResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(new org.springframework.http.MediaType("text", "plain", StandardCharsets.UTF_8))
+                .body(message.getBytes(StandardCharsets.UTF_8));
+    }
+
     public static String getUser() {
         return System.getProperty(KieServerConstants.CFG_KIE_USER, "kieserver");
     }
@@ -19,15 +19,17 @@ package com.qchery.kbench.server.controller.rest;
 import org.kie.server.controller.api.KieServerControllerException;
 import org.kie.server.controller.api.KieServerControllerIllegalArgumentException;
 import org.kie.server.controller.api.model.runtime.ContainerList;
-import org.kie.server.controller.api.model.runtime.ServerInstanceKeyList;
 import org.kie.server.controller.impl.service.RuntimeManagementServiceImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import static com.qchery.kbench.server.controller.rest.ControllerUtils.marshal;
+import static com.qchery.kbench.server.controller.rest.ControllerUtils.getResponseType;
+import static com.qchery.kbench.server.controller.rest.ControllerUtils.marshalToBytes;
+import static com.qchery.kbench.server.controller.rest.ControllerUtils.textResponse;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 
 @RequestMapping("/controller/runtime")
@@ -37,20 +39,23 @@ public class RestRuntimeManagementServiceImpl {
     private static final String REQUEST_FAILED_TOBE_PROCESSED = "Request failed to be processed due to: ";
 
     private RuntimeManagementServiceImpl runtimeManagementService;
+    private final TemplateResponseCache responseCache = new TemplateResponseCache(() -> runtimeManagementService.getTemplateStorage());
 
     @GetMapping(value = "servers/{id}/instances")
-    public ResponseEntity<String> getServerInstances(@PathVariable("id") String serverTemplateId,
-                                                     @RequestHeader(CONTENT_TYPE) String contentType) {
+    public ResponseEntity<byte[]> getServerInstances(@PathVariable("id") String serverTemplateId,
+                                                     @RequestHeader(CONTENT_TYPE) String contentType,
+                                                     @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             logger.debug("Received get server template with id {}", serverTemplateId);
-            final ServerInstanceKeyList instances = runtimeManagementService.getServerInstances(serverTemplateId);
-            String response = marshal(contentType, instances);
-            logger.debug("Returning response for get server instance with server template id '{}': {}", serverTemplateId, response);
+            // Server instances are kept with the template, unlike containers which are queried from the servers
+            ResponseEntity<byte[]> response = responseCache.respond("servers/" + serverTemplateId + "/instances", contentType, ifNoneMatch,
+                                                                    () -> runtimeManagementService.getServerInstances(serverTemplateId));
+            logger.debug("Returning response for get server instance with server template id '{}': {}", serverTemplateId, response.getStatusCode());
 
-            return ResponseEntity.ok(response);
+            return response;
         } catch (Exception e) {
             logger.error("Get server instances using server template id {} failed due to {}", serverTemplateId, e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
 
     }
@@ -66,38 +71,38 @@ public class RestRuntimeManagementServiceImpl {
     }
 
     @GetMapping(value = "servers/{id}/instances/{instanceId}/containers")
-    public ResponseEntity<String> getServerInstanceContainers(@PathVariable("id") String serverTemplateId,
+    public ResponseEntity<byte[]> getServerInstanceContainers(@PathVariable("id") String serverTemplateId,
                                                               @PathVariable("instanceId") String instanceId,
                                                               @RequestHeader(CONTENT_TYPE) String contentType) {
         try {
             logger.debug("Received get containers for server template with id {} and instance id {}", serverTemplateId, instanceId);
 
             ContainerList containers = runtimeManagementService.getServerInstanceContainers(serverTemplateId, instanceId);
-            String response = marshal(contentType, containers);
-            logger.debug("Returning response for get containers for server template with id {} and instance id {}: {}", serverTemplateId, instanceId, response);
+            byte[] response = marshalToBytes(contentType, containers);
+            logger.debug("Returning response for get containers for server template with id {} and instance id {}: {} bytes", serverTemplateId, instanceId, response.length);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(getResponseType(contentType)).body(response);
         } catch (Exception e) {
             logger.error("Get containers using server template id {} and instance id {} failed due to {}", serverTemplateId, instanceId, e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
     }
 
     @GetMapping(value = "servers/{id}/containers/{containerId}/instances")
-    public ResponseEntity<String> getServerTemplateContainers(@PathVariable("id") String serverTemplateId,
+    public ResponseEntity<byte[]> getServerTemplateContainers(@PathVariable("id") String serverTemplateId,
                                                               @PathVariable("containerId") String containerId,
                                                               @RequestHeader(CONTENT_TYPE) String contentType) {
         try {
             logger.debug("Received get container {} for server template with id {}", containerId, serverTemplateId);
 
             ContainerList containers = runtimeManagementService.getServerTemplateContainers(serverTemplateId, containerId);
-            String response = marshal(contentType, containers);
-            logger.debug("Returning response for get containers for server template with id {} and container id {}: {}", serverTemplateId, containerId, response);
+            byte[] response = marshalToBytes(contentType, containers);
+            logger.debug("Returning response for get containers for server template with id {} and container id {}: {} bytes", serverTemplateId, containerId, response.length);
 
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().contentType(getResponseType(contentType)).body(response);
         } catch (Exception e) {
             logger.error("Get containers using server template id {} and container id {} failed due to {}", serverTemplateId, containerId, e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
     }
 
@@ -24,7 +24,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import static com.qchery.kbench.server.controller.rest.ControllerUtils.textResponse;
 import static org.springframework.http.HttpHeaders.CONTENT_TYPE;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
 import static org.springframework.http.HttpStatus.*;
 
 @RequestMapping("/controller/management")
@@ -34,6 +36,7 @@ public class RestSpecManagementServiceImpl {
     private static final String REQUEST_FAILED_TOBE_PROCESSED = "Request failed to be processed due to: ";
 
     private SpecManagementServiceImpl specManagementService;
+    private final TemplateResponseCache responseCache = new TemplateResponseCache(() -> specManagementService.getTemplateStorage());
 
     @ExceptionHandler(KieServerControllerIllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(Exception e) {
@@ -108,75 +111,86 @@ public class RestSpecManagementServiceImpl {
     }
 
     @GetMapping(value = "servers/{id}")
-    public ResponseEntity<String> getServerTemplate(@PathVariable("id") String serverTemplateId,
-                                                    @RequestHeader(CONTENT_TYPE) String contentType) {
+    public ResponseEntity<byte[]> getServerTemplate(@PathVariable("id") String serverTemplateId,
+                                                    @RequestHeader(CONTENT_TYPE) String contentType,
+                                                    @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             logger.debug("Received get server template with id {}", serverTemplateId);
-            final ServerTemplate serverTemplate = specManagementService.getServerTemplate(serverTemplateId);
-            String response = ControllerUtils.marshal(contentType, serverTemplate);
-            logger.debug("Returning response for get server template with id '{}': {}", serverTemplateId, response);
+            ResponseEntity<byte[]> response = responseCache.respond("servers/" + serverTemplateId, contentType, ifNoneMatch,
+                                                                    () -> specManagementService.getServerTemplate(serverTemplateId));
+            logger.debug("Returning response for get server template with id '{}': {}", serverTemplateId, response.getStatusCode());
 
-            return ResponseEntity.ok(response);
+            return response;
         } catch (Exception e) {
             logger.error("Get server template id {} failed due to {}", serverTemplateId, e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
 
     }
 
     @GetMapping(value = "servers")
-    public ResponseEntity<String> listServerTemplates(
-            @RequestHeader(CONTENT_TYPE) String contentType) {
+    public ResponseEntity<byte[]> listServerTemplates(
+            @RequestHeader(CONTENT_TYPE) String contentType,
+            @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         try {
             logger.debug("Received get server templates");
 
-            ServerTemplateList serverTemplateList = specManagementService.listServerTemplates();
-            String response = ControllerUtils.marshal(contentType, serverTemplateList);
-            logger.debug("Returning response for get server templates: {}", response);
+            ResponseEntity<byte[]> response = responseCache.respond("servers", contentType, ifNoneMatch,
+                                                                    () -> specManagementService.listServerTemplates());
+            logger.debug("Returning response for get server templates: {}", response.getStatusCode());
 
-            return ResponseEntity.ok(response);
+            return response;
         } catch (Exception e) {
             logger.error("Get server templates failed due to {}", e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
     }
 
 
     @GetMapping(value = "servers/{id}/containers")
-    public ResponseEntity<String> listContainerSpec(@PathVariable("id") String serverTemplateId,
-                                                    @RequestHeader(CONTENT_TYPE) String contentType) {
+    public ResponseEntity<byte[]> listContainerSpec(@PathVariable("id") String serverTemplateId,
+                                                    @RequestHeader(CONTENT_TYPE) String contentType,
+                                                    @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             logger.debug("Received get containers for server template with id {}", serverTemplateId);
 
-            String response = ControllerUtils.marshal(contentType, specManagementService.listContainerSpec(serverTemplateId));
-            logger.debug("Returning response for get containers for server templates with id {}: {}", serverTemplateId, response);
+            ResponseEntity<byte[]> response = responseCache.respond("servers/" + serverTemplateId + "/containers", contentType, ifNoneMatch,
+                                                                    () -> specManagementService.listContainerSpec(serverTemplateId));
+            logger.debug("Returning response for get containers for server templates with id {}: {}", serverTemplateId, response.getStatusCode());
 
-            return ResponseEntity.ok(response);
+            return response;
         } catch (Exception e) {
             logger.error("Get server templates failed due to {}", e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
     }
 
     @GetMapping(value = "servers/{id}/containers/{containerId}")
-    public ResponseEntity<String> getContainerSpec(@PathVariable("id") String serverTemplateId,
+    public ResponseEntity<byte[]> getContainerSpec(@PathVariable("id") String serverTemplateId,
                                                    @PathVariable("containerId") String containerId,
-                                                   @RequestHeader(CONTENT_TYPE) String contentType) {
+                                                   @RequestHeader(CONTENT_TYPE) String contentType,
+                                                   @RequestHeader(value = IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             logger.debug("Received get container {} for server template with id {}", containerId, serverTemplateId);
 
-            ContainerSpec containerSpec = specManagementService.getContainerInfo(serverTemplateId, containerId);
-            // set it as server template key only to avoid cyclic references between containers and templates
-            containerSpec.setServerTemplateKey(new ServerTemplateKey(containerSpec.getServerTemplateKey().getId(), containerSpec.getServerTemplateKey().getName()));
-
-            String response = ControllerUtils.marshal(contentType, containerSpec);
-            logger.debug("Returning response for get container {} for server templates with id {}: {}", containerId, serverTemplateId, response);
-
-            return ResponseEntity.ok(response);
+            ResponseEntity<byte[]> response = responseCache.respond("servers/" + serverTemplateId + "/containers/" + containerId, contentType, ifNoneMatch, () -> {
+                ContainerSpec containerSpec = specManagementService.getContainerInfo(serverTemplateId, containerId);
+                // set it as server template key only to avoid cyclic references between containers and templates,
+                // on a spec of its own as the one returned is the stored one, shared with every other reader
+                return new ContainerSpec(containerSpec.getId(),
+                                         containerSpec.getContainerName(),
+                                         new ServerTemplateKey(containerSpec.getServerTemplateKey().getId(), containerSpec.getServerTemplateKey().getName()),
+                                         containerSpec.getReleasedId(),
+                                         containerSpec.getStatus(),
+                                         containerSpec.getConfigs());
+            });
+            logger.debug("Returning response for get container {} for server templates with id {}: {}", containerId, serverTemplateId, response.getStatusCode());
+
+            return response;
         } catch (Exception e) {
             logger.error("Get server templates failed due to {}", e.getMessage(), e);
-            return ResponseEntity.status(INTERNAL_SERVER_ERROR).body("Unknown error " + e.getMessage());
+            return textResponse(INTERNAL_SERVER_ERROR, "Unknown error " + e.getMessage());
         }
     }
 
@@ -0,0 +1,120 @@
+package com.qchery.kbench.server.controller.rest;
+
+import com.qchery.kbench.server.controller.storage.VersionedKieServerTemplateStorage;
+import org.kie.server.api.marshalling.MarshallingFormat;
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the marshalled responses of the GET endpoints which only depend on the server templates, per resource
+ * and marshalling format, as the bytes sent with a strong ETag of their content. An entry is valid as long as
+ * the version of the template storage it was built from is current, so polling unchanged templates marshals
+ * nothing, and a request whose If-None-Match holds the ETag is answered with 304 and no body.
+ * <p>
+ * Storages which aren't versioned are marshalled on every request, the ETag is honored regardless.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:50
+ */
+public class TemplateResponseCache {
+
+    private final Supplier<KieServerTemplateStorage> templateStorage;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile long version = VersionedKieServerTemplateStorage.UNVERSIONED;
+
+    /**
+     * @param templateStorage the storage the responses are derived from, looked up on every request as the
+     *                        services get theirs after the endpoints are created
+     */
+    public TemplateResponseCache(final Supplier<KieServerTemplateStorage> templateStorage) {
+        this.templateStorage = templateStorage;
+    }
+
+    /**
+     * @param resource    the resource, unique among the responses of the cache, ie., "servers/{id}"
+     * @param contentType the marshalling format requested
+     * @param ifNoneMatch the If-None-Match header, null if not given
+     * @param entity      loads the entity to marshal if there's no valid entry
+     */
+    public ResponseEntity<byte[]> respond(final String resource,
+                                          final String contentType,
+                                          final String ifNoneMatch,
+                                          final Supplier<?> entity) {
+        final MarshallingFormat format = ControllerUtils.getFormat(contentType);
+        if (format == null) {
+            throw new IllegalArgumentException("Unknown marshalling format " + contentType);
+        }
+        final String key = format + ":" + resource;
+        final long current = getStorageVersion();
+        Entry entry = current == VersionedKieServerTemplateStorage.UNVERSIONED ? null : entries.get(key);
+        if (entry == null || entry.version != current) {
+            // The version is read before the entity is loaded, an entity changed meanwhile is built again later
+            entry = new Entry(current,
+                              ControllerUtils.marshalToBytes(contentType,
+                                                             entity.get()));
+            if (current != VersionedKieServerTemplateStorage.UNVERSIONED) {
+                if (current != version) {
+                    // Drops the entries of deleted templates along with the stale ones
+                    entries.clear();
+                    version = current;
+                }
+                entries.put(key,
+                            entry);
+            }
+        }
+
+        if (matches(ifNoneMatch,
+                    entry.etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(entry.etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(entry.etag)
+                .contentType(ControllerUtils.getResponseType(contentType))
+                .body(entry.body);
+    }
+
+    private long getStorageVersion() {
+        final KieServerTemplateStorage storage = templateStorage.get();
+        return storage instanceof VersionedKieServerTemplateStorage
+                ? ((VersionedKieServerTemplateStorage) storage).getVersion()
+                : VersionedKieServerTemplateStorage.UNVERSIONED;
+    }
+
+    private static boolean matches(final String ifNoneMatch,
+                                   final String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            // If-None-Match compares weakly
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Entry {
+
+        private final long version;
+        private final byte[] body;
+        private final String etag;
+
+        private Entry(final long version,
+                      final byte[] content) {
+            this.version = version;
+            this.body = content;
+            this.etag = "\"" + DigestUtils.md5DigestAsHex(content) + "\"";
+        }
+    }
+}
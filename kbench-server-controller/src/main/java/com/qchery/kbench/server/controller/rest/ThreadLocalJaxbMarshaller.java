@@ -0,0 +1,88 @@
+package com.qchery.kbench.server.controller.rest;
+
+import org.kie.server.api.marshalling.MarshallingException;
+import org.kie.server.api.marshalling.ModelWrapper;
+import org.kie.server.api.marshalling.jaxb.JaxbMarshaller;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * A {@link JaxbMarshaller} which keeps a JAXB {@link Marshaller} and {@link Unmarshaller} per thread over its
+ * shared {@link JAXBContext}. They aren't thread-safe, so the KIE marshaller creates new ones on every call,
+ * which costs more than marshalling the small controller responses does. Request threads are pooled, so
+ * every thread creates them once.
+ * <p>
+ * They are created again if the context is rebuilt, ie., when the class loader is set.
+ *
+ * @author Chery
+ * @date 2026/10/18 21:00
+ */
+public class ThreadLocalJaxbMarshaller extends JaxbMarshaller {
+
+    private final ThreadLocal<Cached<Marshaller>> marshallers = new ThreadLocal<>();
+    private final ThreadLocal<Cached<Unmarshaller>> unmarshallers = new ThreadLocal<>();
+
+    public ThreadLocalJaxbMarshaller(final Set<Class<?>> classes,
+                                     final ClassLoader classLoader) {
+        super(classes,
+              classLoader);
+    }
+
+    /**
+     * Marshals straight into the stream as UTF-8, which is left open.
+     */
+    public void marshall(final Object input,
+                         final OutputStream outputStream) {
+        try {
+            getMarshaller().marshal(ModelWrapper.wrap(input),
+                                    outputStream);
+        } catch (JAXBException e) {
+            throw new MarshallingException("Can't marshall input object: " + input,
+                                           e);
+        }
+    }
+
+    @Override
+    protected Marshaller getMarshaller() throws JAXBException {
+        final Cached<Marshaller> cached = marshallers.get();
+        if (cached != null && cached.context == jaxbContext) {
+            return cached.value;
+        }
+        final Marshaller marshaller = super.getMarshaller();
+        marshallers.set(new Cached<>(jaxbContext,
+                                     marshaller));
+        return marshaller;
+    }
+
+    @Override
+    protected Unmarshaller getUnmarshaller() throws JAXBException {
+        final Cached<Unmarshaller> cached = unmarshallers.get();
+        if (cached != null && cached.context == jaxbContext) {
+            return cached.value;
+        }
+        final Unmarshaller unmarshaller = super.getUnmarshaller();
+        unmarshallers.set(new Cached<>(jaxbContext,
+                                       unmarshaller));
+        return unmarshaller;
+    }
+
+    /**
+     * A marshaller or unmarshaller with the context it was created by.
+     */
+    private static class Cached<T> {
+
+        private final JAXBContext context;
+        private final T value;
+
+        private Cached(final JAXBContext context,
+                       final T value) {
+            this.context = context;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.qchery.kbench.server.controller.service;
+
+import com.qchery.kbench.server.controller.storage.CopyingKieServerTemplateStorage;
+import org.kie.server.controller.api.model.runtime.ServerInstanceKey;
+import org.kie.server.controller.api.model.spec.Capability;
+import org.kie.server.controller.api.model.spec.ContainerConfig;
+import org.kie.server.controller.api.model.spec.ContainerSpec;
+import org.kie.server.controller.api.model.spec.ContainerSpecKey;
+import org.kie.server.controller.api.model.spec.ContainerSpecList;
+import org.kie.server.controller.api.model.spec.ServerConfig;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.kie.server.controller.api.model.spec.ServerTemplateKeyList;
+import org.kie.server.controller.api.model.spec.ServerTemplateList;
+import org.kie.server.controller.api.service.NotificationService;
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+import org.kie.server.controller.impl.service.SpecManagementServiceImpl;
+
+/**
+ * A {@link SpecManagementServiceImpl} whose writes modify copies of the stored templates, while its reads are
+ * served from the stored templates themselves by a second service. Readers thus never see a template which is
+ * half way through a change and never pay for a copy, which the dashboards and KIE servers polling the
+ * templates would otherwise do on every request.
+ * <p>
+ * Every write runs within {@link CopyingKieServerTemplateStorage#write(String, java.util.function.Supplier)}, so
+ * concurrent writes of a template, including the ones of the controller, are applied one after the other.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:40
+ */
+public class CopyOnWriteSpecManagementService extends SpecManagementServiceImpl {
+
+    private final SpecManagementServiceImpl reader = new SpecManagementServiceImpl();
+    private CopyingKieServerTemplateStorage writerStorage;
+
+    @Override
+    public void setTemplateStorage(final KieServerTemplateStorage templateStorage) {
+        reader.setTemplateStorage(templateStorage);
+        writerStorage = new CopyingKieServerTemplateStorage(templateStorage);
+        super.setTemplateStorage(writerStorage);
+    }
+
+    @Override
+    public void setNotificationService(final NotificationService notificationService) {
+        reader.setNotificationService(notificationService);
+        super.setNotificationService(notificationService);
+    }
+
+    @Override
+    public void saveContainerSpec(final String serverTemplateId,
+                                  final ContainerSpec containerSpec) {
+        write(serverTemplateId,
+              () -> super.saveContainerSpec(serverTemplateId,
+                                            containerSpec));
+    }
+
+    @Override
+    public void updateContainerSpec(final String serverTemplateId,
+                                    final ContainerSpec containerSpec) {
+        write(serverTemplateId,
+              () -> super.updateContainerSpec(serverTemplateId,
+                                              containerSpec));
+    }
+
+    @Override
+    public void updateContainerSpec(final String serverTemplateId,
+                                    final String containerId,
+                                    final ContainerSpec containerSpec) {
+        write(serverTemplateId,
+              () -> super.updateContainerSpec(serverTemplateId,
+                                              containerId,
+                                              containerSpec));
+    }
+
+    @Override
+    public void saveServerTemplate(final ServerTemplate serverTemplate) {
+        write(serverTemplate.getId(),
+              () -> super.saveServerTemplate(serverTemplate));
+    }
+
+    @Override
+    public void deleteContainerSpec(final String serverTemplateId,
+                                    final String containerSpecId) {
+        write(serverTemplateId,
+              () -> super.deleteContainerSpec(serverTemplateId,
+                                              containerSpecId));
+    }
+
+    @Override
+    public void deleteServerTemplate(final String serverTemplateId) {
+        write(serverTemplateId,
+              () -> super.deleteServerTemplate(serverTemplateId));
+    }
+
+    @Override
+    public void copyServerTemplate(final String serverTemplateId,
+                                   final String newServerTemplateId,
+                                   final String newServerTemplateName) {
+        // The template copied from is only read
+        write(newServerTemplateId,
+              () -> super.copyServerTemplate(serverTemplateId,
+                                             newServerTemplateId,
+                                             newServerTemplateName));
+    }
+
+    @Override
+    public void updateContainerConfig(final String serverTemplateId,
+                                      final String containerSpecId,
+                                      final Capability capability,
+                                      final ContainerConfig containerConfig) {
+        write(serverTemplateId,
+              () -> super.updateContainerConfig(serverTemplateId,
+                                                containerSpecId,
+                                                capability,
+                                                containerConfig));
+    }
+
+    @Override
+    public void updateServerTemplateConfig(final String serverTemplateId,
+                                           final Capability capability,
+                                           final ServerConfig serverTemplateConfig) {
+        write(serverTemplateId,
+              () -> super.updateServerTemplateConfig(serverTemplateId,
+                                                     capability,
+                                                     serverTemplateConfig));
+    }
+
+    @Override
+    public void startContainer(final ContainerSpecKey containerSpecKey) {
+        write(containerSpecKey.getServerTemplateKey().getId(),
+              () -> super.startContainer(containerSpecKey));
+    }
+
+    @Override
+    public void stopContainer(final ContainerSpecKey containerSpecKey) {
+        write(containerSpecKey.getServerTemplateKey().getId(),
+              () -> super.stopContainer(containerSpecKey));
+    }
+
+    @Override
+    public void deleteServerInstance(final ServerInstanceKey serverInstanceKey) {
+        write(serverInstanceKey.getServerTemplateId(),
+              () -> super.deleteServerInstance(serverInstanceKey));
+    }
+
+    /**
+     * Writes which load the template they change through this method get a copy as well.
+     */
+    @Override
+    public ServerTemplate getServerTemplate(final String serverTemplateId) {
+        if (writerStorage != null && writerStorage.isWriting(serverTemplateId)) {
+            return super.getServerTemplate(serverTemplateId);
+        }
+        return reader.getServerTemplate(serverTemplateId);
+    }
+
+    @Override
+    public ServerTemplateKeyList listServerTemplateKeys() {
+        return reader.listServerTemplateKeys();
+    }
+
+    @Override
+    public ServerTemplateList listServerTemplates() {
+        return reader.listServerTemplates();
+    }
+
+    @Override
+    public ContainerSpecList listContainerSpec(final String serverTemplateId) {
+        return reader.listContainerSpec(serverTemplateId);
+    }
+
+    @Override
+    public ContainerSpec getContainerInfo(final String serverTemplateId,
+                                          final String containerId) {
+        return reader.getContainerInfo(serverTemplateId,
+                                       containerId);
+    }
+
+    private void write(final String serverTemplateId,
+                       final Runnable change) {
+        if (writerStorage == null) {
+            // Without a storage of its own the service changes the templates of the in-memory one in place
+            change.run();
+            return;
+        }
+        writerStorage.write(serverTemplateId,
+                            () -> {
+                                change.run();
+                                return null;
+                            });
+    }
+}
@@ -16,6 +16,9 @@
 package com.qchery.kbench.server.controller.service;
 
 import com.qchery.kbench.server.controller.rest.RestKieServerControllerImpl;
+import com.qchery.kbench.server.controller.storage.CopyingKieServerTemplateStorage;
+import org.kie.server.api.model.KieServerInfo;
+import org.kie.server.controller.api.model.KieServerSetup;
 import org.kie.server.controller.api.service.NotificationService;
 import org.kie.server.controller.api.service.NotificationServiceFactory;
 import org.kie.server.controller.api.service.PersistingServerTemplateStorageService;
@@ -30,13 +33,16 @@ public class StandaloneKieServerControllerImpl extends RestKieServerControllerIm
 
     private static Logger logger = LoggerFactory.getLogger(StandaloneKieServerControllerImpl.class);
 
+    private CopyingKieServerTemplateStorage copyingStorage;
+
     public StandaloneKieServerControllerImpl() {
         super();
         ServiceLoader<PersistingServerTemplateStorageService> storageServices = ServiceLoader.load(PersistingServerTemplateStorageService.class);
         
         if (storageServices != null && storageServices.iterator().hasNext()) {
             PersistingServerTemplateStorageService storageService = storageServices.iterator().next();
-            this.setTemplateStorage(storageService.getTemplateStorage());
+            this.copyingStorage = new CopyingKieServerTemplateStorage(storageService.getTemplateStorage());
+            this.setTemplateStorage(this.copyingStorage);
 
             logger.debug("Server template storage for standalone kie server controller is {}",
                          storageService.getTemplateStorage().toString());
@@ -56,4 +62,29 @@ public class StandaloneKieServerControllerImpl extends RestKieServerControllerIm
         }
     }
 
+    /**
+     * Changes the template of the server like the spec management service does, one change at a time.
+     */
+    @Override
+    public KieServerSetup connect(final KieServerInfo serverInfo) {
+        if (copyingStorage == null) {
+            return super.connect(serverInfo);
+        }
+        return copyingStorage.write(serverInfo.getServerId(),
+                                     () -> super.connect(serverInfo));
+    }
+
+    @Override
+    public void disconnect(final KieServerInfo serverInfo) {
+        if (copyingStorage == null) {
+            super.disconnect(serverInfo);
+            return;
+        }
+        copyingStorage.write(serverInfo.getServerId(),
+                              () -> {
+                                  super.disconnect(serverInfo);
+                                  return null;
+                              });
+    }
+
 }
@@ -33,7 +33,7 @@ public class StandaloneSpecManagementServiceImpl extends RestSpecManagementServi
 
     public StandaloneSpecManagementServiceImpl() {
         super();
-        SpecManagementServiceImpl specManagementService = new SpecManagementServiceImpl();
+        SpecManagementServiceImpl specManagementService = new CopyOnWriteSpecManagementService();
 
         ServiceLoader<PersistingServerTemplateStorageService> templateStorageServices =  ServiceLoader.load(PersistingServerTemplateStorageService.class);
         if (templateStorageServices != null && templateStorageServices.iterator().hasNext()) {
@@ -0,0 +1,134 @@
+package com.qchery.kbench.server.controller.storage;
+
+import com.thoughtworks.xstream.XStream;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.kie.server.controller.api.model.spec.ServerTemplateKey;
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+import org.kie.soup.commons.xstream.XStreamUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out copies of the templates of a storage. The controller services load a template, modify it in place
+ * and update it, which must not happen to the instance readers of a {@link JournaledKieServerTemplateStorage}
+ * share. The services which write get their templates through this storage, so a write pays for a copy and
+ * reads stay free of it.
+ * <p>
+ * As every writer changes a copy of its own, concurrent changes of a template would overwrite each other.
+ * Writers therefore load, change and update a template within {@link #write(String, Supplier)}, which
+ * serializes them per template across all copying storages of the same storage, ie., the ones of the
+ * controller and of the spec management service.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:40
+ */
+public class CopyingKieServerTemplateStorage implements VersionedKieServerTemplateStorage {
+
+    // The write locks of the templates of a storage, by storage
+    private static final Map<KieServerTemplateStorage, Map<String, ReentrantLock>> WRITE_LOCKS = new WeakHashMap<>();
+
+    private final KieServerTemplateStorage delegate;
+    private final Map<String, ReentrantLock> writeLocks;
+    private final XStream xstream = XStreamUtils.createTrustingXStream();
+
+    public CopyingKieServerTemplateStorage(final KieServerTemplateStorage delegate) {
+        this.delegate = delegate;
+        synchronized (WRITE_LOCKS) {
+            this.writeLocks = WRITE_LOCKS.computeIfAbsent(delegate,
+                                                          storage -> new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Runs a change of a template while no other thread changes it. The lock is reentrant and is held until
+     * the change returns, so it has to load the template itself.
+     *
+     * @param serverTemplateId the template changed
+     * @param change           loads, changes and updates the template
+     */
+    public <T> T write(final String serverTemplateId,
+                       final Supplier<T> change) {
+        // The locks of deleted templates are kept, there are few templates and they are usually created again
+        final ReentrantLock lock = writeLocks.computeIfAbsent(String.valueOf(serverTemplateId),
+                                                              id -> new ReentrantLock());
+        lock.lock();
+        try {
+            return change.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return true if the current thread is changing the template
+     */
+    public boolean isWriting(final String serverTemplateId) {
+        final ReentrantLock lock = writeLocks.get(String.valueOf(serverTemplateId));
+        return lock != null && lock.isHeldByCurrentThread();
+    }
+
+    @Override
+    public ServerTemplate store(final ServerTemplate serverTemplate) {
+        return delegate.store(serverTemplate);
+    }
+
+    @Override
+    public List<ServerTemplateKey> loadKeys() {
+        return delegate.loadKeys();
+    }
+
+    @Override
+    public List<ServerTemplate> load() {
+        return delegate.load().stream()
+                .map(this::copy)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ServerTemplate load(final String identifier) {
+        final ServerTemplate serverTemplate = delegate.load(identifier);
+        return serverTemplate == null ? null : copy(serverTemplate);
+    }
+
+    @Override
+    public boolean exists(final String identifier) {
+        return delegate.exists(identifier);
+    }
+
+    @Override
+    public ServerTemplate update(final ServerTemplate serverTemplate) {
+        return delegate.update(serverTemplate);
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate instanceof VersionedKieServerTemplateStorage
+                ? ((VersionedKieServerTemplateStorage) delegate).getVersion()
+                : UNVERSIONED;
+    }
+
+    @Override
+    public ServerTemplate delete(final String identifier) {
+        return delegate.delete(identifier);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "CopyingKieServerTemplateStorage{" + delegate + "}";
+    }
+
+    private ServerTemplate copy(final ServerTemplate serverTemplate) {
+        return (ServerTemplate) xstream.fromXML(xstream.toXML(serverTemplate));
+    }
+}
@@ -0,0 +1,556 @@
+package com.qchery.kbench.server.controller.storage;
+
+import com.thoughtworks.xstream.XStream;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+import org.kie.server.controller.api.model.spec.ServerTemplateKey;
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+import org.kie.soup.commons.xstream.XStreamUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * A {@link KieServerTemplateStorage} which keeps the server templates in memory and makes every change durable
+ * in an append-only log before it returns. Reads are served from an immutable view which is replaced on every
+ * change, so they never wait for a writer. The view shares the templates which didn't change with the one it
+ * replaces and builds the lists returned by {@link #load()} and {@link #loadKeys()} once, so polling them
+ * allocates nothing.
+ * <p>
+ * The templates returned are the committed ones and must not be modified, {@link CopyingKieServerTemplateStorage}
+ * gives callers which modify templates before updating them copies of their own. The templates committed are
+ * read back from the records written, so callers may go on modifying the instance they stored without changing
+ * the committed one, or a snapshot written from it.
+ * <p>
+ * Writers serialize their template and hand the record to a single committer thread. The committer takes
+ * every record that is waiting, appends them with one write and forces the log once for all of them, then
+ * publishes the new view and releases the writers. Concurrent writers thus share one fsync.
+ * <p>
+ * Once the log holds the configured number of records the templates are written to a snapshot, which is
+ * moved into place atomically, and a new log is started. On startup the snapshot is loaded and only the log
+ * which follows it is replayed, memory mapped. A record torn by a crash is cut off the log.
+ * <p>
+ * The storage is configured with system properties, as it's created by a {@link java.util.ServiceLoader} and
+ * not by Spring, see {@link #STORAGE_DIR_PROPERTY} and {@link #SNAPSHOT_THRESHOLD_PROPERTY}.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:30
+ */
+public class JournaledKieServerTemplateStorage implements VersionedKieServerTemplateStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(JournaledKieServerTemplateStorage.class);
+
+    /**
+     * The dir of the snapshot and the log, "repositories/kie/controller" by default.
+     */
+    public static final String STORAGE_DIR_PROPERTY = "kbench.controller.storage.dir";
+
+    /**
+     * The number of log records after which a snapshot is written, 1000 by default.
+     */
+    public static final String SNAPSHOT_THRESHOLD_PROPERTY = "kbench.controller.storage.snapshot-threshold";
+
+    private static final String DEFAULT_STORAGE_DIR = "repositories/kie/controller";
+    private static final int DEFAULT_SNAPSHOT_THRESHOLD = 1000;
+
+    private static final String SNAPSHOT_FILE = "templates.snapshot";
+    private static final String SNAPSHOT_HEADER = "#kbench-template-snapshot 1 ";
+    private static final String LOG_PREFIX = "templates.";
+    private static final String LOG_SUFFIX = ".log";
+
+    private static final byte STORE = 1;
+    private static final byte DELETE = 2;
+    // length, checksum and operation of a record
+    private static final int HEADER_SIZE = 9;
+    private static final int MAX_BATCH = 512;
+    private static final String CLOSED = "The server template storage is closed";
+
+    private static JournaledKieServerTemplateStorage instance;
+
+    private final Path dir;
+    private final int snapshotThreshold;
+    private final XStream xstream = XStreamUtils.createTrustingXStream();
+    private final BlockingQueue<Write> pending = new LinkedBlockingQueue<>();
+    private final Thread committer;
+
+    private volatile TemplateView view = new TemplateView(Collections.emptyMap(),
+                                                             0);
+    private volatile boolean closed;
+
+    // Only used by the committer once started
+    private FileChannel logChannel;
+    private long generation;
+    private int logRecords;
+
+    /**
+     * @return the storage of the dir configured with the system properties, both controller services share it
+     */
+    public static synchronized JournaledKieServerTemplateStorage getInstance() {
+        if (instance == null) {
+            instance = new JournaledKieServerTemplateStorage(Paths.get(System.getProperty(STORAGE_DIR_PROPERTY,
+                                                                                          DEFAULT_STORAGE_DIR)),
+                                                             Integer.getInteger(SNAPSHOT_THRESHOLD_PROPERTY,
+                                                                                DEFAULT_SNAPSHOT_THRESHOLD));
+        }
+        return instance;
+    }
+
+    /**
+     * @param dir               the dir of the snapshot and the log
+     * @param snapshotThreshold the number of log records after which a snapshot is written
+     */
+    public JournaledKieServerTemplateStorage(final Path dir,
+                                             final int snapshotThreshold) {
+        this.dir = dir.toAbsolutePath().normalize();
+        this.snapshotThreshold = Math.max(1,
+                                          snapshotThreshold);
+        try {
+            Files.createDirectories(this.dir);
+            recover();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to open the server template storage in " + this.dir + ": " + e.getMessage(),
+                                       e);
+        }
+        committer = new Thread(this::commitLoop,
+                               "kbench-template-storage");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @Override
+    public ServerTemplate store(final ServerTemplate serverTemplate) {
+        final String xml = xstream.toXML(serverTemplate);
+        commit(new Write(STORE,
+                         serverTemplate.getId(),
+                         (ServerTemplate) xstream.fromXML(xml),
+                         xml.getBytes(StandardCharsets.UTF_8)));
+        return serverTemplate;
+    }
+
+    @Override
+    public List<ServerTemplateKey> loadKeys() {
+        return view.keys;
+    }
+
+    @Override
+    public List<ServerTemplate> load() {
+        return view.templates;
+    }
+
+    @Override
+    public ServerTemplate load(final String identifier) {
+        return view.byId.get(identifier);
+    }
+
+    @Override
+    public boolean exists(final String identifier) {
+        return view.byId.containsKey(identifier);
+    }
+
+    @Override
+    public ServerTemplate update(final ServerTemplate serverTemplate) {
+        return store(serverTemplate);
+    }
+
+    /**
+     * @return the number of batches committed since startup
+     */
+    @Override
+    public long getVersion() {
+        return view.version;
+    }
+
+    @Override
+    public ServerTemplate delete(final String identifier) {
+        final ServerTemplate serverTemplate = view.byId.get(identifier);
+        if (serverTemplate != null) {
+            commit(new Write(DELETE,
+                             identifier,
+                             null,
+                             identifier.getBytes(StandardCharsets.UTF_8)));
+        }
+        return serverTemplate;
+    }
+
+    /**
+     * Commits the changes which are waiting and stops the committer. Writes which are queued after it stopped
+     * fail.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final List<Write> rejected = new ArrayList<>();
+        pending.drainTo(rejected);
+        rejected.forEach(write -> write.done.completeExceptionally(new IllegalStateException(CLOSED)));
+        try {
+            logChannel.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the server template log: {}",
+                     e.getMessage());
+        }
+        synchronized (JournaledKieServerTemplateStorage.class) {
+            if (instance == this) {
+                instance = null;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JournaledKieServerTemplateStorage{dir=" + dir + "}";
+    }
+
+    private void commit(final Write write) {
+        if (closed) {
+            throw new IllegalStateException(CLOSED);
+        }
+        pending.add(write);
+        // The committer may have stopped before it could see the write, which it then never takes
+        if (closed && pending.remove(write)) {
+            throw new IllegalStateException(CLOSED);
+        }
+        try {
+            write.done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while storing server template " + write.id,
+                                       e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IllegalStateException) {
+                // Rejected by close()
+                throw (IllegalStateException) e.getCause();
+            }
+            throw new RuntimeException("Unable to store server template " + write.id + ": " + e.getCause().getMessage(),
+                                       e.getCause());
+        }
+    }
+
+    private void commitLoop() {
+        final List<Write> batch = new ArrayList<>();
+        while (!closed || !pending.isEmpty()) {
+            try {
+                final Write first = pending.poll(100,
+                                                 TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            pending.drainTo(batch,
+                            MAX_BATCH - 1);
+            try {
+                append(batch);
+            } catch (IOException | RuntimeException e) {
+                log.error("Unable to append {} changes to the server template log",
+                          batch.size(),
+                          e);
+                batch.forEach(write -> write.done.completeExceptionally(e));
+                batch.clear();
+                continue;
+            }
+            batch.forEach(write -> write.done.complete(null));
+            batch.clear();
+
+            if (logRecords >= snapshotThreshold) {
+                try {
+                    snapshot();
+                } catch (IOException | RuntimeException e) {
+                    // The log still holds every change, the snapshot is attempted again after the next batch
+                    log.warn("Unable to write a server template snapshot: {}",
+                             e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void append(final List<Write> batch) throws IOException {
+        final ByteBuffer[] records = new ByteBuffer[batch.size()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = batch.get(i).record();
+        }
+        final long position = logChannel.position();
+        try {
+            while (records[records.length - 1].hasRemaining()) {
+                logChannel.write(records);
+            }
+            logChannel.force(false);
+        } catch (IOException e) {
+            // Records following a partial one would be lost on replay
+            logChannel.truncate(position);
+            logChannel.position(position);
+            throw e;
+        }
+        logRecords += batch.size();
+
+        final Map<String, ServerTemplate> next = new LinkedHashMap<>(view.byId);
+        for (Write write : batch) {
+            if (write.op == STORE) {
+                next.put(write.id,
+                         write.template);
+            } else {
+                next.remove(write.id);
+            }
+        }
+        view = new TemplateView(next,
+                                view.version + 1);
+    }
+
+    private void snapshot() throws IOException {
+        final long nextGeneration = generation + 1;
+        final Path snapshotFile = dir.resolve(SNAPSHOT_FILE);
+        final Path tmp = dir.resolve("." + SNAPSHOT_FILE + ".part");
+        final byte[] header = (SNAPSHOT_HEADER + nextGeneration + "\n").getBytes(StandardCharsets.UTF_8);
+        final byte[] content = xstream.toXML(new ArrayList<>(view.templates)).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(tmp,
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            final ByteBuffer[] buffers = {ByteBuffer.wrap(header), ByteBuffer.wrap(content)};
+            while (buffers[1].hasRemaining()) {
+                channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tmp,
+                       snapshotFile,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp,
+                       snapshotFile,
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDir();
+
+        // The snapshot covers the current log from now on
+        final FileChannel previous = logChannel;
+        logChannel = openLog(nextGeneration);
+        previous.close();
+        Files.deleteIfExists(getLogFile(generation));
+        generation = nextGeneration;
+        logRecords = 0;
+        log.debug("Wrote a snapshot of {} server templates, generation {}",
+                  view.templates.size(),
+                  generation);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recover() throws IOException {
+        final Map<String, ServerTemplate> recovered = new LinkedHashMap<>();
+        final Path snapshotFile = dir.resolve(SNAPSHOT_FILE);
+        if (Files.isRegularFile(snapshotFile)) {
+            final String snapshot = new String(Files.readAllBytes(snapshotFile),
+                                               StandardCharsets.UTF_8);
+            final int newline = snapshot.indexOf('\n');
+            if (!snapshot.startsWith(SNAPSHOT_HEADER) || newline < 0) {
+                throw new IOException("Unknown snapshot format of " + snapshotFile);
+            }
+            generation = Long.parseLong(snapshot.substring(SNAPSHOT_HEADER.length(),
+                                                           newline).trim());
+            for (ServerTemplate template : (Collection<ServerTemplate>) xstream.fromXML(snapshot.substring(newline + 1))) {
+                recovered.put(template.getId(),
+                              template);
+            }
+        }
+
+        final Path logFile = getLogFile(generation);
+        long validLength = 0;
+        if (Files.isRegularFile(logFile)) {
+            try (FileChannel channel = FileChannel.open(logFile,
+                                                        StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                            0,
+                                                            channel.size());
+                validLength = replay(buffer,
+                                     recovered);
+                if (validLength < channel.size()) {
+                    log.warn("Cut a torn record of {} bytes off {}",
+                             channel.size() - validLength,
+                             logFile);
+                }
+            }
+        }
+        deleteStaleLogs();
+
+        logChannel = openLog(generation);
+        if (logChannel.size() > validLength) {
+            logChannel.truncate(validLength);
+            logChannel.force(false);
+        }
+        logChannel.position(validLength);
+        view = new TemplateView(recovered,
+                                0);
+        log.info("Loaded {} server templates from {}, replayed {} log records",
+                 recovered.size(),
+                 dir,
+                 logRecords);
+    }
+
+    /**
+     * Applies the records of a log up to the first incomplete or corrupt one.
+     *
+     * @return the length of the complete records
+     */
+    private long replay(final ByteBuffer buffer,
+                        final Map<String, ServerTemplate> recovered) {
+        final CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            final int start = buffer.position();
+            final int length = buffer.getInt();
+            final int checksum = buffer.getInt();
+            final byte op = buffer.get();
+            if (length < 0 || length > buffer.remaining() || (op != STORE && op != DELETE)) {
+                return start;
+            }
+            final byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(op);
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                return start;
+            }
+            if (op == STORE) {
+                final ServerTemplate template = (ServerTemplate) xstream.fromXML(new String(payload,
+                                                                                           StandardCharsets.UTF_8));
+                recovered.put(template.getId(),
+                              template);
+            } else {
+                recovered.remove(new String(payload,
+                                            StandardCharsets.UTF_8));
+            }
+            logRecords++;
+        }
+        return buffer.position();
+    }
+
+    /**
+     * Deletes logs a snapshot was written for, but which weren't deleted before a crash.
+     */
+    private void deleteStaleLogs() throws IOException {
+        try (DirectoryStream<Path> logs = Files.newDirectoryStream(dir,
+                                                                   LOG_PREFIX + "*" + LOG_SUFFIX)) {
+            for (Path file : logs) {
+                if (!file.equals(getLogFile(generation))) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private FileChannel openLog(final long logGeneration) throws IOException {
+        final FileChannel channel = FileChannel.open(getLogFile(logGeneration),
+                                                     StandardOpenOption.CREATE,
+                                                     StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        forceDir();
+        return channel;
+    }
+
+    private Path getLogFile(final long logGeneration) {
+        return dir.resolve(LOG_PREFIX + logGeneration + LOG_SUFFIX);
+    }
+
+    /**
+     * Makes created and renamed files durable, which works on POSIX file systems only.
+     */
+    private void forceDir() {
+        try (FileChannel channel = FileChannel.open(dir,
+                                                    StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("Unable to force {}: {}",
+                      dir,
+                      e.getMessage());
+        }
+    }
+
+    /**
+     * The committed templates, never modified once published.
+     */
+    private static class TemplateView {
+
+        private final Map<String, ServerTemplate> byId;
+        private final List<ServerTemplate> templates;
+        private final List<ServerTemplateKey> keys;
+        private final long version;
+
+        private TemplateView(final Map<String, ServerTemplate> byId,
+                             final long version) {
+            this.byId = Collections.unmodifiableMap(byId);
+            this.templates = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+            this.keys = Collections.unmodifiableList(byId.values().stream()
+                                                             .map(template -> new ServerTemplateKey(template.getId(),
+                                                                                                    template.getName()))
+                                                             .collect(Collectors.toList()));
+            this.version = version;
+        }
+    }
+
+    /**
+     * A change waiting to be committed.
+     */
+    private static class Write {
+
+        private final byte op;
+        private final String id;
+        private final ServerTemplate template;
+        private final byte[] payload;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Write(final byte op,
+                      final String id,
+                      final ServerTemplate template,
+                      final byte[] payload) {
+            this.op = op;
+            this.id = id;
+            this.template = template;
+            this.payload = payload;
+        }
+
+        private ByteBuffer record() {
+            final CRC32 crc = new CRC32();
+            crc.update(op);
+            crc.update(payload);
+            final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+            record.putInt(payload.length)
+                    .putInt((int) crc.getValue())
+                    .put(op)
+                    .put(payload)
+                    .flip();
+            return record;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.qchery.kbench.server.controller.storage;
+
+import org.kie.server.controller.api.service.PersistingServerTemplateStorageService;
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+
+/**
+ * Provides the {@link JournaledKieServerTemplateStorage} to the standalone controller services, which look it
+ * up with a {@link java.util.ServiceLoader}.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:30
+ */
+public class JournaledServerTemplateStorageService implements PersistingServerTemplateStorageService {
+
+    @Override
+    public KieServerTemplateStorage getTemplateStorage() {
+        return JournaledKieServerTemplateStorage.getInstance();
+    }
+}
@@ -0,0 +1,23 @@
+package com.qchery.kbench.server.controller.storage;
+
+import org.kie.server.controller.api.storage.KieServerTemplateStorage;
+
+/**
+ * A {@link KieServerTemplateStorage} which counts its changes, so what was derived from its templates can be
+ * reused until the version moves on.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:50
+ */
+public interface VersionedKieServerTemplateStorage extends KieServerTemplateStorage {
+
+    /**
+     * Returned by storages which can't tell their version.
+     */
+    long UNVERSIONED = -1;
+
+    /**
+     * @return a number which changes whenever a template is stored, updated or deleted
+     */
+    long getVersion();
+}
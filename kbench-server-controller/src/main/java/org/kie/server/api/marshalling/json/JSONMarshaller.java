@@ -15,6 +15,7 @@
 package org.kie.server.api.marshalling.json;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Array;
@@ -33,11 +34,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 import javax.xml.bind.annotation.adapters.XmlAdapter;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapters;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -50,8 +53,10 @@ import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -65,6 +70,7 @@ import com.fasterxml.jackson.databind.jsontype.NamedType;
 import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
 import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
 import com.fasterxml.jackson.databind.jsontype.TypeResolverBuilder;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.jsontype.impl.AsWrapperTypeDeserializer;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.databind.util.ClassUtil;
@@ -251,6 +257,17 @@ public class JSONMarshaller implements Marshaller {
             throw new MarshallingException("Error marshalling input", e);
         }
     }
+    /**
+     * Marshals straight into the stream as UTF-8, which is left open.
+     */
+    public void marshall(Object objectInput, OutputStream outputStream) {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            objectMapper.writeValue(generator, wrap(objectInput));
+        } catch (IOException e) {
+            throw new MarshallingException("Error marshalling input", e);
+        }
+    }
     @Override
     public <T> T unmarshall(String serializedInput, Class<T> type) {
         try {
@@ -430,118 +447,97 @@ public class JSONMarshaller implements Marshaller {
         }
     }
     class CustomObjectSerializer extends JsonSerializer<Object> {
-        private ObjectMapper customObjectMapper;
+        private ObjectWriter customObjectWriter;
         public CustomObjectSerializer(ObjectMapper customObjectMapper) {
-            this.customObjectMapper = customObjectMapper;
+            this.customObjectWriter = streamingWriter(customObjectMapper);
         }
         @Override
         public void serialize(Object value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-            String json = customObjectMapper.writeValueAsString(value);
-            jgen.writeRawValue(json);
+            customObjectWriter.writeValue(jgen, value);
         }
     }
+    /**
+     * Writes values of JaxbUnknownAdapter properties element by element into the generator, wrapping each in an
+     * object named after its class unless its serializer writes the class name as type id already.
+     */
     class WrappingObjectSerializer extends JsonSerializer<Object> {
         private ObjectMapper customObjectMapper;
+        private ObjectWriter customObjectWriter;
+        private final Map<Class<?>, Boolean> wrappedClasses = new ConcurrentHashMap<Class<?>, Boolean>();
         public WrappingObjectSerializer(ObjectMapper customObjectMapper) {
             this.customObjectMapper = customObjectMapper;
+            this.customObjectWriter = streamingWriter(customObjectMapper);
         }
         @Override
         public void serialize(Object value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-            String className = value.getClass().getName();
             if (value instanceof Collection) {
-                String collectionJson = writeCollection((Collection) value, customObjectMapper);
-                jgen.writeRawValue(collectionJson);
+                writeCollection((Collection) value, jgen);
             } else if (value instanceof Map) {
-                String mapJson = writeMap((Map) value, customObjectMapper);
-                jgen.writeRawValue(mapJson);
-            } else if (value instanceof Object[] || value.getClass().isArray()) {
-                String arrayJson = writeArray((Object[]) value, customObjectMapper);
-                jgen.writeRawValue(arrayJson);
+                writeMap((Map) value, jgen);
+            } else if (value.getClass().isArray()) {
+                writeArray(value, jgen);
             } else {
-                String json = customObjectMapper.writeValueAsString(value);
-                // don't wrap java and javax classes as they are always available, in addition avoid double wrapping
-                if (!className.startsWith("java.") && !className.startsWith("javax.") && !json.contains(className)) {
-                    json = "{\"" + className + "\":" + json + "}";
-                }
-                jgen.writeRawValue(json);
+                writeElement(value, jgen);
             }
         }
-        private String writeArray(Object[] value, ObjectMapper customObjectMapper) throws IOException{
-            StringBuilder builder = new StringBuilder();
-            builder.append("[");
+        private void writeArray(Object value, JsonGenerator jgen) throws IOException {
+            jgen.writeStartArray();
             int size = Array.getLength(value);
-            for (Object element : value) {
-                size--;
-                String elementClassName = element.getClass().getName();
-                String json = customObjectMapper.writeValueAsString(element);
-                // don't wrap java and javax classes as they are always available, in addition avoid double wrapping
-                if (!elementClassName.startsWith("java.") && !elementClassName.startsWith("javax.") && !json.contains(elementClassName)) {
-                    json = "{\"" + elementClassName + "\":" + json + "}";
-                }
-                builder.append(json);
-                if (size > 0) {
-                    builder.append(",");
-                }
+            for (int i = 0; i < size; i++) {
+                writeElement(Array.get(value, i), jgen);
             }
-            builder.append("]");
-            return  builder.toString();
+            jgen.writeEndArray();
         }
-        private String writeMap(Map value, ObjectMapper customObjectMapper) throws IOException{
-            StringBuilder builder = new StringBuilder();
-            builder.append("{");
-            int size = ((Map<?, ?>)value).size();
+        private void writeMap(Map value, JsonGenerator jgen) throws IOException {
+            jgen.writeStartObject();
             for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
-                size--;
-                // handle map key
                 Object key = entry.getKey();
-                String keyClassName = key.getClass().getName();
-                String json = customObjectMapper.writeValueAsString(key);
-                // don't wrap java and javax classes as they are always available, in addition avoid double wrapping
-                if (!keyClassName.startsWith("java.") && !keyClassName.startsWith("javax.") && !json.contains(keyClassName)) {
-                    json = "{\"" + keyClassName + "\":" + json + "}";
-                }
-                // handle map value
-                Object mValue = entry.getValue();
-                String mValueClassName = mValue.getClass().getName();
-                String jsonValue = customObjectMapper.writeValueAsString(mValue);
-                // don't wrap java and javax classes as they are always available, in addition avoid double wrapping
-                if (!mValueClassName.startsWith("java.") && !mValueClassName.startsWith("javax.") && !json.contains(mValueClassName)) {
-                    jsonValue = "{\"" + mValueClassName + "\":" + jsonValue + "}";
-                }
-                // add as JSON map
-                builder.append(json);
-                builder.append(" : ");
-                builder.append(jsonValue);
-                if (size > 0) {
-                    builder.append(",");
-                }
+                jgen.writeFieldName(key instanceof Enum ? ((Enum) key).name() : String.valueOf(key));
+                writeElement(entry.getValue(), jgen);
             }
-            builder.append("}");
-            return builder.toString();
-        }
-        private String writeCollection(Collection collection, ObjectMapper customObjectMapper) throws IOException {
-            StringBuilder builder = new StringBuilder();
-            builder.append("[");
-            int size = collection.size();
-            Iterator it = collection.iterator();
-            while (it.hasNext()) {
-                size--;
-                Object element = it.next();
-                String elementClassName = element.getClass().getName();
-                String json = customObjectMapper.writeValueAsString(element);
-                // don't wrap java and javax classes as they are always available, in addition avoid double wrapping
-                if (!elementClassName.startsWith("java.") && !elementClassName.startsWith("javax.") && !json.contains(elementClassName)) {
-                    json = "{\"" + elementClassName + "\":" + json + "}";
-                }
-                builder.append(json);
-                if (size > 0) {
-                    builder.append(",");
-                }
+            jgen.writeEndObject();
+        }
+        private void writeCollection(Collection collection, JsonGenerator jgen) throws IOException {
+            jgen.writeStartArray();
+            for (Object element : collection) {
+                writeElement(element, jgen);
+            }
+            jgen.writeEndArray();
+        }
+        private void writeElement(Object element, JsonGenerator jgen) throws IOException {
+            if (element == null) {
+                jgen.writeNull();
+                return;
             }
-            builder.append("]");
-            return  builder.toString();
+            if (isWrapped(element.getClass())) {
+                jgen.writeStartObject();
+                jgen.writeFieldName(element.getClass().getName());
+                customObjectWriter.writeValue(jgen, element);
+                jgen.writeEndObject();
+            } else {
+                customObjectWriter.writeValue(jgen, element);
+            }
+        }
+        // don't wrap java and javax classes as they are always available, in addition avoid double wrapping
+        private boolean isWrapped(Class<?> clazz) throws JsonMappingException {
+            Boolean wrapped = wrappedClasses.get(clazz);
+            if (wrapped == null) {
+                String className = clazz.getName();
+                TypeSerializer typeSerializer = customObjectMapper.getSerializerProviderInstance().findTypeSerializer(customObjectMapper.constructType(clazz));
+                wrapped = !className.startsWith("java.") && !className.startsWith("javax.")
+                        && (typeSerializer == null || typeSerializer.getTypeIdResolver().getMechanism() != JsonTypeInfo.Id.CLASS);
+                wrappedClasses.put(clazz, wrapped);
+            }
+            return wrapped;
         }
     }
+    /**
+     * A writer which writes into the generator of the enclosing value without flushing it, so nested values
+     * are streamed to the target rather than built as strings.
+     */
+    private static ObjectWriter streamingWriter(ObjectMapper mapper) {
+        return mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
     class CustomObjectDeserializer extends UntypedObjectDeserializer {
         private final Pattern VALID_JAVA_IDENTIFIER = Pattern.compile("(\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*\\.)*\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*");
         private static final long serialVersionUID = 7764405880012867708L;
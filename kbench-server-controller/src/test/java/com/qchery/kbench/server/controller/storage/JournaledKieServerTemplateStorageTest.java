@@ -0,0 +1,285 @@
+package com.qchery.kbench.server.controller.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kie.server.controller.api.model.spec.ServerTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Chery
+ * @date 2026/10/18 21:10
+ */
+public class JournaledKieServerTemplateStorageTest {
+
+    private static final String LOG_FILE = "templates.0.log";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path dir;
+    private JournaledKieServerTemplateStorage storage;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = folder.newFolder("controller").toPath();
+    }
+
+    @After
+    public void tearDown() {
+        if (storage != null) {
+            storage.close();
+        }
+    }
+
+    @Test
+    public void replaysTheLogOnReopen() {
+        storage = open(1000);
+        storage.store(new ServerTemplate("a",
+                                         "A"));
+        storage.store(new ServerTemplate("b",
+                                         "B"));
+        storage.store(new ServerTemplate("c",
+                                         "C"));
+        storage.update(new ServerTemplate("b",
+                                          "B2"));
+        storage.delete("a");
+        reopen(1000);
+
+        assertEquals(ids("b",
+                         "c"),
+                     ids(storage.load()));
+        assertEquals("B2",
+                     storage.load("b").getName());
+        assertNull(storage.load("a"));
+        assertFalse(storage.exists("a"));
+        assertEquals(2,
+                     storage.loadKeys().size());
+    }
+
+    @Test
+    public void keepsTheStoredTemplateApartFromTheCallers() {
+        storage = open(1);
+        final ServerTemplate serverTemplate = new ServerTemplate("a",
+                                                                 "A");
+        storage.store(serverTemplate);
+        serverTemplate.setName("uncommitted");
+        storage.store(new ServerTemplate("b",
+                                         "B"));
+
+        assertEquals("A",
+                     storage.load("a").getName());
+        reopen(1);
+        assertEquals("A",
+                     storage.load("a").getName());
+    }
+
+    @Test
+    public void cutsATornRecordOffTheLog() throws IOException {
+        storage = open(1000);
+        storage.store(new ServerTemplate("a",
+                                         "A"));
+        storage.store(new ServerTemplate("b",
+                                         "B"));
+        storage.close();
+        final long validLength = Files.size(dir.resolve(LOG_FILE));
+
+        // The header of a record whose payload never made it to disk
+        append(dir.resolve(LOG_FILE),
+               ByteBuffer.allocate(12).putInt(1000).putInt(42).put((byte) 1).put(new byte[]{'<', '<', '<'}));
+        storage = open(1000);
+
+        assertEquals(ids("a",
+                         "b"),
+                     ids(storage.load()));
+        assertEquals(validLength,
+                     Files.size(dir.resolve(LOG_FILE)));
+
+        // Records appended after the cut are replayed as well
+        storage.store(new ServerTemplate("c",
+                                         "C"));
+        reopen(1000);
+        assertEquals(ids("a",
+                         "b",
+                         "c"),
+                     ids(storage.load()));
+    }
+
+    @Test
+    public void dropsARecordWithAWrongChecksum() throws IOException {
+        storage = open(1000);
+        storage.store(new ServerTemplate("a",
+                                         "A"));
+        storage.close();
+        final long validLength = Files.size(dir.resolve(LOG_FILE));
+        storage = open(1000);
+        storage.store(new ServerTemplate("b",
+                                         "B"));
+        storage.close();
+
+        // Flips the last byte of the second record
+        final Path logFile = dir.resolve(LOG_FILE);
+        try (FileChannel channel = FileChannel.open(logFile,
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            final ByteBuffer last = ByteBuffer.allocate(1);
+            channel.read(last,
+                         channel.size() - 1);
+            last.put(0,
+                     (byte) ~last.get(0));
+            last.rewind();
+            channel.write(last,
+                          channel.size() - 1);
+        }
+        storage = open(1000);
+
+        assertEquals(ids("a"),
+                     ids(storage.load()));
+        assertEquals(validLength,
+                     Files.size(logFile));
+    }
+
+    @Test
+    public void rollsOverToASnapshotAndANewLog() throws IOException {
+        storage = open(2);
+        for (int i = 0; i < 5; i++) {
+            storage.store(new ServerTemplate("t" + i,
+                                             "T" + i));
+        }
+        storage.delete("t0");
+        storage.close();
+
+        assertTrue(Files.isRegularFile(dir.resolve("templates.snapshot")));
+        final List<String> logs = logFiles();
+        assertEquals(1,
+                     logs.size());
+        assertFalse(logs.contains(LOG_FILE));
+
+        storage = open(2);
+        assertEquals(ids("t1",
+                         "t2",
+                         "t3",
+                         "t4"),
+                     ids(storage.load()));
+    }
+
+    @Test
+    public void rejectsWritesOnceClosed() {
+        storage = open(1000);
+        storage.close();
+        try {
+            storage.store(new ServerTemplate("a",
+                                             "A"));
+            fail("Stored a template in a closed storage");
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            storage = null;
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void releasesWritersRacingClose() throws Exception {
+        final JournaledKieServerTemplateStorage racing = open(1000);
+        final ExecutorService writers = Executors.newFixedThreadPool(8);
+        final CountDownLatch started = new CountDownLatch(8);
+        final List<Future<Integer>> results = new ArrayList<>();
+        for (int w = 0; w < 8; w++) {
+            final int writer = w;
+            results.add(writers.submit(() -> {
+                started.countDown();
+                int stored = 0;
+                try {
+                    for (int i = 0; ; i++) {
+                        racing.store(new ServerTemplate("w" + writer + "-" + i,
+                                                         "T"));
+                        stored++;
+                    }
+                } catch (IllegalStateException e) {
+                    return stored;
+                }
+            }));
+        }
+        started.await();
+        racing.close();
+
+        int stored = 0;
+        for (Future<Integer> result : results) {
+            // Every writer returns, none waits for a commit which never comes
+            stored += result.get(10,
+                                 TimeUnit.SECONDS);
+        }
+        writers.shutdown();
+
+        storage = open(1000);
+        assertEquals(stored,
+                     storage.load().size());
+    }
+
+    private JournaledKieServerTemplateStorage open(final int snapshotThreshold) {
+        return new JournaledKieServerTemplateStorage(dir,
+                                                     snapshotThreshold);
+    }
+
+    private void reopen(final int snapshotThreshold) {
+        storage.close();
+        storage = open(snapshotThreshold);
+    }
+
+    private List<String> logFiles() throws IOException {
+        final List<String> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir,
+                                                                    "templates.*.log")) {
+            files.forEach(file -> logs.add(file.getFileName().toString()));
+        }
+        return logs;
+    }
+
+    private static void append(final Path file,
+                               final ByteBuffer content) throws IOException {
+        content.flip();
+        try (FileChannel channel = FileChannel.open(file,
+                                                    StandardOpenOption.WRITE,
+                                                    StandardOpenOption.APPEND)) {
+            channel.write(content);
+        }
+    }
+
+    private static List<String> ids(final String... ids) {
+        final List<String> list = new ArrayList<>();
+        for (String id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    private static List<String> ids(final List<ServerTemplate> templates) {
+        return templates.stream()
+                .map(ServerTemplate::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
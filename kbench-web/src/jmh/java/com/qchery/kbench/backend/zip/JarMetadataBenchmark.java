@@ -0,0 +1,146 @@
+package com.qchery.kbench.backend.zip;
+
+import com.qchery.kbench.backend.cache.JarMetadataCache;
+import org.guvnor.common.services.project.model.GAV;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Reads the POM and the GAV of a JAR with thousands of entries, as the repository does when it lists or deploys
+ * an artifact. The Maven metadata is written last, as the Maven archiver does, so every reader which scans the
+ * entries has to go through all of them.
+ * <p>
+ * {@link #zipFile} is the former implementation: one {@link ZipFile} to find the POM and another one to find
+ * pom.properties, each enumerating every entry and decoding the entry found char by char. Unlike the former
+ * implementation it closes the second ZipFile, the benchmark would run out of file descriptors otherwise.
+ *
+ * @author Chery
+ * @date 2026/10/18 21:30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JarMetadataBenchmark {
+
+    private static final String POM_XML = "META-INF/maven/com.qchery/generated/pom.xml";
+    private static final String POM_PROPERTIES = "META-INF/maven/com.qchery/generated/pom.properties";
+
+    @Param({"10000", "50000"})
+    public int entries;
+
+    private File jarFile;
+    private JarMetadataCache cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        jarFile = File.createTempFile("kbench-generated",
+                                      ".jar");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(jarFile))) {
+            for (int i = 0; i < entries; i++) {
+                zos.putNextEntry(new ZipEntry("com/qchery/generated/package" + (i / 100) + "/Generated" + i + ".class"));
+                zos.write(("class Generated" + i).getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+            zos.putNextEntry(new ZipEntry(POM_XML));
+            zos.write(("<project>\n" +
+                    "  <modelVersion>4.0.0</modelVersion>\n" +
+                    "  <groupId>com.qchery</groupId>\n" +
+                    "  <artifactId>generated</artifactId>\n" +
+                    "  <version>1.0.0</version>\n" +
+                    "</project>\n").getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+            zos.putNextEntry(new ZipEntry(POM_PROPERTIES));
+            zos.write(("groupId=com.qchery\n" +
+                    "artifactId=generated\n" +
+                    "version=1.0.0\n").getBytes(StandardCharsets.UTF_8));
+            zos.closeEntry();
+        }
+        cache = new JarMetadataCache(16);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jarFile.delete();
+    }
+
+    @Benchmark
+    public void zipFile(final Blackhole blackhole) throws IOException {
+        blackhole.consume(findEntry(jarFile,
+                                    "pom.xml"));
+        final Properties props = new Properties();
+        props.load(new StringReader(findEntry(jarFile,
+                                              "pom.properties")));
+        blackhole.consume(new GAV(props.getProperty("groupId"),
+                                  props.getProperty("artifactId"),
+                                  props.getProperty("version")));
+    }
+
+    @Benchmark
+    public void centralDirectory(final Blackhole blackhole) throws IOException {
+        final MavenJarMetadata metadata = MavenJarMetadata.read(jarFile);
+        blackhole.consume(metadata.getPomXml());
+        blackhole.consume(metadata.getGAV());
+    }
+
+    @Benchmark
+    public void cached(final Blackhole blackhole) throws IOException {
+        final MavenJarMetadata metadata = cache.get(jarFile);
+        blackhole.consume(metadata.getPomXml());
+        blackhole.consume(metadata.getGAV());
+    }
+
+    private static String findEntry(final File file,
+                                    final String suffix) throws IOException {
+        try (ZipFile zip = new ZipFile(file)) {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                final ZipEntry entry = e.nextElement();
+                if (entry.getName().startsWith(MavenJarMetadata.MAVEN_DIR) && entry.getName().endsWith(suffix)) {
+                    return toStringCharByChar(zip,
+                                              entry);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static String toStringCharByChar(final ZipFile zip,
+                                             final ZipEntry entry) throws IOException {
+        try (InputStream is = zip.getInputStream(entry)) {
+            final InputStreamReader isr = new InputStreamReader(is,
+                                                                StandardCharsets.UTF_8);
+            final StringBuilder sb = new StringBuilder();
+            for (int c = isr.read(); c != -1; c = isr.read()) {
+                sb.append((char) c);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.qchery.kbench;
 
+import com.qchery.kbench.backend.helpers.HttpBatchPostHelper;
+import com.qchery.kbench.backend.helpers.HttpDeleteHelper;
 import com.qchery.kbench.backend.helpers.HttpGetHelper;
 import com.qchery.kbench.backend.helpers.HttpPostHelper;
 import com.qchery.kbench.backend.helpers.HttpPutHelper;
@@ -22,15 +24,23 @@ public class M2Servlet extends HttpServlet {
 
     private static final Logger log = LoggerFactory.getLogger(M2Servlet.class);
 
+    private static final String BATCH_PATH = "/batch";
+
     @Autowired
     private HttpPostHelper httpPostHelper;
 
+    @Autowired
+    private HttpBatchPostHelper httpBatchPostHelper;
+
     @Autowired
     private HttpPutHelper httpPutHelper;
 
     @Autowired
     private HttpGetHelper httpGetHelper;
 
+    @Autowired
+    private HttpDeleteHelper httpDeleteHelper;
+
     @Override
     public void doGet(final HttpServletRequest request,
                       final HttpServletResponse response) throws IOException {
@@ -41,6 +51,11 @@ public class M2Servlet extends HttpServlet {
     @Override
     public void doPost(final HttpServletRequest request,
                        final HttpServletResponse response) throws IOException {
+        if (BATCH_PATH.equals(request.getPathInfo())) {
+            log.info("Batch POST request received.");
+            httpBatchPostHelper.handle(request, response);
+            return;
+        }
         log.info("POST request received.");
         httpPostHelper.handle(request, response);
     }
@@ -52,4 +67,11 @@ public class M2Servlet extends HttpServlet {
         httpPutHelper.handle(request, response, request.getPathInfo());
     }
 
+    @Override
+    public void doDelete(final HttpServletRequest request,
+                         final HttpServletResponse response) throws IOException {
+        log.info("DELETE request received for " + request.getPathInfo());
+        httpDeleteHelper.handle(request, response);
+    }
+
 }
@@ -38,6 +38,20 @@ public class ArtifactImpl implements Artifact {
         this.setFile(file);
     }
 
+    public ArtifactImpl(final File file,
+                        final String groupId,
+                        final String artifactId,
+                        final String version,
+                        final String extension) {
+        this.setFile(file);
+        this.groupId = groupId;
+        this.artifactId = artifactId;
+        this.version = version;
+        this.baseVersion = version;
+        this.snapshot = version != null && version.endsWith("SNAPSHOT");
+        this.extension = extension;
+    }
+
     @Override
     public String getGroupId() {
         return this.groupId;
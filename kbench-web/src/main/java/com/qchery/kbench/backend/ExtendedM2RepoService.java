@@ -19,7 +19,9 @@ package com.qchery.kbench.backend;
 import org.guvnor.common.services.project.model.GAV;
 import org.guvnor.m2repo.service.M2RepoService;
 
+import java.io.File;
 import java.io.InputStream;
+import java.util.Map;
 
 public interface ExtendedM2RepoService extends M2RepoService {
 
@@ -33,6 +35,15 @@ public interface ExtendedM2RepoService extends M2RepoService {
     void deployJar(InputStream is,
                    GAV gav);
 
+    /**
+     * Deploy a JAR file to all repositories without copying it first. Missing pom.xml and pom.properties
+     * entries are appended to the file itself.
+     * @param jarFile JAR file owned by the caller
+     * @param gav GAV representing the JAR
+     */
+    void deployJar(File jarFile,
+                   GAV gav);
+
     /**
      * Convenience method for unit tests - to avoid deploying to additional (possibly external) repositories
      * @param is InputStream holding JAR
@@ -41,6 +52,15 @@ public interface ExtendedM2RepoService extends M2RepoService {
     void deployJarInternal(InputStream is,
                            GAV gav);
 
+    /**
+     * Deploy several JARs and POMs with a single deployment per repository.
+     * @param jars JAR files owned by the caller with their GAVs, missing pom.xml and pom.properties
+     * entries are appended to them
+     * @param poms POM files with their GAVs
+     */
+    void deployBatch(Map<File, GAV> jars,
+                     Map<File, GAV> poms);
+
     /**
      * Deploy POM to local Maven Repository and Workbench's remote Maven Repository.
      * @param is InputStream holding POM
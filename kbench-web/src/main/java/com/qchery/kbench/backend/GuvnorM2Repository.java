@@ -1,9 +1,17 @@
 package com.qchery.kbench.backend;
 
+import com.qchery.kbench.backend.cache.CompressedContentCache;
+import com.qchery.kbench.backend.cache.JarMetadataCache;
+import com.qchery.kbench.backend.deploy.DeploymentUnit;
+import com.qchery.kbench.backend.deploy.RepositoryDeployer;
+import com.qchery.kbench.backend.events.RepositoryContentChangedEvent;
+import com.qchery.kbench.backend.lock.RepositoryLocks;
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
 import com.qchery.kbench.backend.repositories.ArtifactRepository;
 import com.qchery.kbench.backend.repositories.ArtifactRepositoryService;
+import com.qchery.kbench.backend.zip.MavenJarMetadata;
+import com.qchery.kbench.backend.zip.ZipAppender;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.input.ReaderInputStream;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.codehaus.plexus.util.IOUtil;
@@ -14,26 +22,37 @@ import org.guvnor.common.services.project.model.GAV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import static org.guvnor.m2repo.utils.FileNameUtilities.*;
 
 @Service
+@ManagedResource(objectName = "com.qchery.kbench:type=M2Repository", description = "Maven repositories")
 public class GuvnorM2Repository {
 
     private static final Logger log = LoggerFactory.getLogger(GuvnorM2Repository.class);
 
-    private static final int BUFFER_SIZE = 1024;
+    private static final int BUFFER_SIZE = 65536;
 
     private final List<ArtifactRepository> repositories = new ArrayList<>();
     private final List<ArtifactRepository> pomRepositories = new ArrayList<>();
@@ -41,9 +60,27 @@ public class GuvnorM2Repository {
     @Autowired
     private ArtifactRepositoryService artifactRepositoryService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private RepositoryDeployer repositoryDeployer;
+
+    @Autowired
+    private RepositoryLocks repositoryLocks;
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    @Autowired
+    private CompressedContentCache compressedContentCache;
+
+    private JarMetadataCache jarMetadataCache;
+
     @PostConstruct
     public void init() {
         setM2Repos();
+        jarMetadataCache = new JarMetadataCache(repositoryProperties.getJarMetadataCacheSize());
     }
 
     private void setM2Repos() {
@@ -83,6 +120,33 @@ public class GuvnorM2Repository {
                         name)));
     }
 
+    /**
+     * Notifies a repository that files below its root dir were written or removed.
+     *
+     * @param repositoryName the repository name, the global repository if null or empty
+     * @param files          the changed files or directories
+     */
+    public void refresh(final String repositoryName,
+                        final File... files) {
+        String name = ArtifactRepositoryService.GLOBAL_M2_REPO_NAME;
+        if (repositoryName != null && !repositoryName.isEmpty()) {
+            name = repositoryName;
+        }
+        getArtifactRepository(name).refresh(files);
+        eventPublisher.publishEvent(new RepositoryContentChangedEvent(this,
+                name,
+                files));
+    }
+
+    /**
+     * Rebuilds the index of every repository by walking its content, ie., after files were copied into a
+     * repository dir by hand.
+     */
+    @ManagedOperation(description = "Rebuilds the index of every repository from its content")
+    public void reindex() {
+        this.repositories.forEach(ArtifactRepository::reindex);
+    }
+
     public String getRepositoryURL(String repositoryName) {
         File file = new File(getM2RepositoryRootDir(repositoryName));
         return "file://" + file.getAbsolutePath();
@@ -98,23 +162,9 @@ public class GuvnorM2Repository {
 
             inputStreamToFile(jarStream, jarFile);
 
-            //Write pom.xml to JAR if it doesn't already exist
-            String pomXML = loadPomFromJar(new File(jarFile.getPath()));
-            if (pomXML == null) {
-                pomXML = generatePOM(gav);
-                jarFile = appendFileToJar(pomXML, getPomXmlPath(gav), jarFile.getPath());
-            }
-
-            //Write pom.properties to JAR if it doesn't already exist
-            String pomProperties = loadGAVFromJarInternal(new File(jarFile.getPath()));
-            if (pomProperties == null) {
-                pomProperties = generatePomProperties(gav);
-                jarFile = appendFileToJar(pomProperties,
-                        getPomPropertiesPath(gav),
-                        jarFile.getPath());
-            }
-
-            deployArtifact(gav, pomXML, jarFile, includeAdditionalRepositories);
+            deployArtifact(jarFile,
+                    gav,
+                    includeAdditionalRepositories);
         } finally {
             try {
                 jarFile.delete();
@@ -124,6 +174,137 @@ public class GuvnorM2Repository {
         }
     }
 
+    /**
+     * Deploys a JAR which already is on disk, without copying it first. Missing pom.xml and pom.properties
+     * entries are appended to the file itself, so it has to be one the caller owns, ie., an uploaded file.
+     */
+    public void deployArtifact(final File jarFile,
+                               final GAV gav,
+                               final boolean includeAdditionalRepositories) {
+        final String pomXML = addMissingPomEntries(jarFile,
+                gav);
+
+        deployArtifact(gav, pomXML, jarFile, includeAdditionalRepositories);
+    }
+
+    /**
+     * Writes pom.xml and pom.properties into the JAR if it doesn't have them yet.
+     *
+     * @return the pom.xml of the JAR
+     */
+    private String addMissingPomEntries(final File jarFile,
+                                        final GAV gav) {
+        //Look up pom.xml and pom.properties with a single pass over the central directory
+        String pomXML = null;
+        boolean hasPomProperties = false;
+        try {
+            final MavenJarMetadata metadata = MavenJarMetadata.read(jarFile);
+            pomXML = metadata.getPomXml();
+            hasPomProperties = metadata.getPomProperties() != null;
+        } catch (IOException e) {
+            log.error(e.getMessage());
+        }
+
+        //Write pom.xml and pom.properties to JAR if they don't already exist
+        final Map<String, String> missingEntries = new LinkedHashMap<>();
+        if (pomXML == null) {
+            pomXML = generatePOM(gav);
+            missingEntries.put(getPomXmlPath(gav),
+                    pomXML);
+        }
+        if (!hasPomProperties) {
+            missingEntries.put(getPomPropertiesPath(gav),
+                    generatePomProperties(gav));
+        }
+        if (!missingEntries.isEmpty()) {
+            appendFilesToJar(missingEntries,
+                    jarFile);
+        }
+        return pomXML;
+    }
+
+    /**
+     * Deploys several JARs and POMs with a single deploy request per repository, instead of one request for
+     * every file. Missing pom.xml and pom.properties entries are appended to the JAR files themselves.
+     *
+     * @param jars the JAR files owned by the caller with their GAVs
+     * @param poms the POM files with their GAVs
+     */
+    public void deployBatch(final Map<File, GAV> jars,
+                            final Map<File, GAV> poms) {
+        final List<GAV> jarGavs = new ArrayList<>();
+        final List<GAV> pomGavs = new ArrayList<>();
+        final List<File> pomXMLFiles = new ArrayList<>();
+        try {
+            final List<DeploymentUnit> jarUnits = new ArrayList<>();
+            for (Map.Entry<File, GAV> jar : jars.entrySet()) {
+                final GAV gav = jar.getValue();
+                final String pomXML = addMissingPomEntries(jar.getKey(),
+                        gav);
+                final File pomXMLFile = File.createTempFile("kbench-",
+                        "-" + toFileName(gav,
+                                "pom.xml"));
+                pomXMLFiles.add(pomXMLFile);
+                writeStringIntoFile(pomXML,
+                        pomXMLFile);
+
+                final Artifact jarArtifact = new DefaultArtifact(gav.getGroupId(),
+                        gav.getArtifactId(), "jar", gav.getVersion()).setFile(jar.getKey());
+                final Artifact pomXMLArtifact = new SubArtifact(jarArtifact, "", "pom").setFile(pomXMLFile);
+                jarUnits.add(new DeploymentUnit(gav,
+                        pomXML,
+                        jarArtifact,
+                        pomXMLArtifact));
+                jarGavs.add(gav);
+            }
+
+            final List<DeploymentUnit> pomUnits = new ArrayList<>();
+            for (Map.Entry<File, GAV> pom : poms.entrySet()) {
+                final GAV gav = pom.getValue();
+                final Artifact pomArtifact = new DefaultArtifact(gav.getGroupId(),
+                        gav.getArtifactId(), "pom", gav.getVersion()).setFile(pom.getKey());
+                pomUnits.add(new DeploymentUnit(gav,
+                        null,
+                        pomArtifact));
+                pomGavs.add(gav);
+            }
+
+            //Every repository gets one request with all of its artifacts
+            final Map<ArtifactRepository, List<DeploymentUnit>> units = new LinkedHashMap<>();
+            for (ArtifactRepository repository : this.repositories) {
+                units.computeIfAbsent(repository,
+                        r -> new ArrayList<>()).addAll(jarUnits);
+            }
+            for (ArtifactRepository repository : this.pomRepositories) {
+                units.computeIfAbsent(repository,
+                        r -> new ArrayList<>()).addAll(pomUnits);
+            }
+            units.values().removeIf(List::isEmpty);
+
+            final List<GAV> gavs = new ArrayList<>(jarGavs);
+            gavs.addAll(pomGavs);
+            final RepositoryLocks.Held held = repositoryLocks.lockGavs(gavs);
+            try {
+                repositoryDeployer.deployBatch(gavs.stream().map(GAV::toString).collect(Collectors.joining(", ")),
+                        units);
+            } finally {
+                held.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            jarGavs.forEach(gav -> fireContentChanged(this.repositories,
+                    gav));
+            pomGavs.forEach(gav -> fireContentChanged(this.pomRepositories,
+                    gav));
+            for (File pomXMLFile : pomXMLFiles) {
+                if (!pomXMLFile.delete()) {
+                    log.warn("Unable to remove temporary file '" + pomXMLFile.getAbsolutePath() + "'");
+                }
+            }
+        }
+    }
+
     public void deployPom(final InputStream pomStream,
                           final GAV gav) {
         //Write POM to temporary file for deployment
@@ -147,33 +328,36 @@ public class GuvnorM2Repository {
     private void inputStreamToFile(final InputStream inputStream,
                                    final File file) {
 
-        FileOutputStream fos = null;
-        try {
-            if (!file.exists()) {
-                file.getParentFile().mkdirs();
-                file.createNewFile();
-            }
-            fos = new FileOutputStream(file);
+        if (!file.getParentFile().exists()) {
+            file.getParentFile().mkdirs();
+        }
 
-            final byte[] buf = new byte[BUFFER_SIZE];
-            int byteRead = 0;
-            while ((byteRead = inputStream.read(buf)) != -1) {
-                fos.write(buf,
-                        0,
-                        byteRead);
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (inputStream instanceof FileInputStream) {
+                final FileChannel source = ((FileInputStream) inputStream).getChannel();
+                long position = 0;
+                long transferred;
+                while ((transferred = channel.transferFrom(source,
+                        position,
+                        BUFFER_SIZE * 16)) > 0) {
+                    position += transferred;
+                }
+            } else {
+                final ReadableByteChannel source = Channels.newChannel(inputStream);
+                final ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+                while (source.read(buf) != -1) {
+                    buf.flip();
+                    while (buf.hasRemaining()) {
+                        channel.write(buf);
+                    }
+                    buf.clear();
+                }
             }
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } finally {
-            if (fos != null) {
-                try {
-                    fos.flush();
-                    fos.close();
-                } catch (IOException e) {
-                    log.error("Error occurred when trying to close stream",
-                            e);
-                }
-            }
         }
     }
 
@@ -195,12 +379,18 @@ public class GuvnorM2Repository {
                     gav.getVersion());
             pomXMLArtifact = pomXMLArtifact.setFile(pomXMLFile);
 
-            final Artifact finalPomXMLArtifact = pomXMLArtifact;
-            this.pomRepositories.forEach(artifactRepository -> {
-                artifactRepository.deploy(pomXML,
-                        finalPomXMLArtifact);
-            });
+            final RepositoryLocks.Held held = repositoryLocks.lockGav(gav);
+            try {
+                repositoryDeployer.deploy(gav,
+                        this.pomRepositories,
+                        pomXML,
+                        pomXMLArtifact);
+            } finally {
+                held.close();
+            }
         } finally {
+            fireContentChanged(this.pomRepositories,
+                    gav);
             try {
                 pomXMLFile.delete();
             } catch (Exception e) {
@@ -230,17 +420,24 @@ public class GuvnorM2Repository {
             Artifact pomXMLArtifact = new SubArtifact(jarArtifact, "", "pom");
             pomXMLArtifact = pomXMLArtifact.setFile(pomXMLFile);
 
-            final Artifact finalJarArtifact = jarArtifact;
-            final Artifact finalPomXMLArtifact = pomXMLArtifact;
-            this.repositories.forEach((repository) -> repository.deploy(pomXML,
-                    finalJarArtifact,
-                    finalPomXMLArtifact));
+            final RepositoryLocks.Held held = repositoryLocks.lockGav(gav);
+            try {
+                repositoryDeployer.deploy(gav,
+                        this.repositories,
+                        pomXML,
+                        jarArtifact,
+                        pomXMLArtifact);
+            } finally {
+                held.close();
+            }
 
             //Only deploy to additional repositories if required. This flag is principally for Unit Tests
             if (!includeAdditionalRepositories) {
                 return;
             }
         } finally {
+            fireContentChanged(this.repositories,
+                    gav);
             try {
                 pomXMLFile.delete();
             } catch (Exception e) {
@@ -284,11 +481,100 @@ public class GuvnorM2Repository {
                 gav.getVersion());
         pomArtifact = pomArtifact.setFile(pomFile);
 
-        final Artifact finalPomArtifact = pomArtifact;
-        this.pomRepositories.forEach(artifactRepository -> {
-            artifactRepository.deploy(null,
-                    finalPomArtifact);
-        });
+        final RepositoryLocks.Held held = repositoryLocks.lockGav(gav);
+        try {
+            repositoryDeployer.deploy(gav,
+                    this.pomRepositories,
+                    null,
+                    pomArtifact);
+        } finally {
+            held.close();
+            fireContentChanged(this.pomRepositories,
+                    gav);
+        }
+    }
+
+    /**
+     * Tells the caches of repository content that the artifact directory of a GAV has changed
+     * in the given repositories, which covers both the version directory and the maven-metadata.xml
+     * next to it.
+     */
+    private void fireContentChanged(final List<ArtifactRepository> repositories,
+                                    final GAV gav) {
+        fireContentChanged(repositories,
+                gav.getGroupId(),
+                gav.getArtifactId());
+    }
+
+    private void fireContentChanged(final List<ArtifactRepository> repositories,
+                                    final String groupId,
+                                    final String artifactId) {
+        final List<File> dirs = new ArrayList<>();
+        for (ArtifactRepository repository : repositories) {
+            if (repository.getRootDir() != null) {
+                dirs.add(new File(repository.getRootDir(),
+                        toArtifactPath(groupId,
+                                artifactId)));
+            }
+        }
+        eventPublisher.publishEvent(new RepositoryContentChangedEvent(this,
+                null,
+                dirs.toArray(new File[0])));
+    }
+
+    /**
+     * Deletes an artifact from every repository.
+     */
+    public void delete(final GAV gav) {
+        deleteArtifacts(gav.getGroupId(),
+                gav.getArtifactId(),
+                gav.getVersion());
+    }
+
+    /**
+     * Deletes the versions of an artifact which match a wildcard from every repository, together with their
+     * checksums and their entries in the maven-metadata files, and drops everything cached about them.
+     *
+     * @param groupId         the group id of the artifact
+     * @param artifactId      the artifact id
+     * @param versionWildcard wildcard the versions have to match, ie., "1.0.*", or null for every version
+     * @return the deleted GAVs, once for each repository they were deleted from
+     */
+    public List<GAV> deleteArtifacts(final String groupId,
+                                     final String artifactId,
+                                     final String versionWildcard) {
+        final List<GAV> deleted = new ArrayList<>();
+        final RepositoryLocks.Held held = repositoryLocks.lockArtifact(groupId,
+                artifactId);
+        try {
+            for (ArtifactRepository repository : this.repositories) {
+                deleted.addAll(repository.delete(groupId,
+                        artifactId,
+                        versionWildcard));
+            }
+        } finally {
+            held.close();
+            final String artifactPath = toArtifactPath(groupId,
+                    artifactId);
+            for (ArtifactRepository repository : this.repositories) {
+                if (repository.getRootDir() != null) {
+                    jarMetadataCache.invalidateBelow(new File(repository.getRootDir(),
+                            artifactPath));
+                    compressedContentCache.invalidate(repository.getName(),
+                            artifactPath);
+                }
+            }
+            fireContentChanged(this.repositories,
+                    groupId,
+                    artifactId);
+        }
+        return deleted;
+    }
+
+    private static String toArtifactPath(final String groupId,
+                                         final String artifactId) {
+        return groupId.replace('.',
+                File.separatorChar) + File.separator + artifactId;
     }
 
     /**
@@ -397,16 +683,9 @@ public class GuvnorM2Repository {
         }
     }
 
-    private static String loadPomFromJar(final File file) {
-        try (ZipFile zip = new ZipFile(file)) {
-            for (Enumeration e = zip.entries(); e.hasMoreElements(); ) {
-                ZipEntry entry = (ZipEntry) e.nextElement();
-
-                if (entry.getName().startsWith("META-INF/maven") && entry.getName().endsWith("pom.xml")) {
-                    return zipEntryToString(zip,
-                            entry);
-                }
-            }
+    private String loadPomFromJar(final File file) {
+        try {
+            return jarMetadataCache.get(file).getPomXml();
         } catch (IOException e) {
             log.error(e.getMessage());
         }
@@ -436,37 +715,7 @@ public class GuvnorM2Repository {
                 jarPath);
 
         try {
-            final String pomProperties = loadGAVFromJarInternal(zip);
-
-            final Properties props = new Properties();
-            props.load(new StringReader(pomProperties));
-
-            final String groupId = props.getProperty("groupId");
-            final String artifactId = props.getProperty("artifactId");
-            final String version = props.getProperty("version");
-
-            return new GAV(groupId,
-                    artifactId,
-                    version);
-        } catch (IOException e) {
-            log.error(e.getMessage());
-        }
-
-        return null;
-    }
-
-    private String loadGAVFromJarInternal(final File file) {
-        try {
-            ZipFile zip = new ZipFile(file);
-
-            for (Enumeration e = zip.entries(); e.hasMoreElements(); ) {
-                ZipEntry entry = (ZipEntry) e.nextElement();
-
-                if (entry.getName().startsWith("META-INF/maven") && entry.getName().endsWith("pom.properties")) {
-                    return zipEntryToString(zip,
-                            entry);
-                }
-            }
+            return jarMetadataCache.get(zip).getGAV();
         } catch (IOException e) {
             log.error(e.getMessage());
         }
@@ -476,15 +725,7 @@ public class GuvnorM2Repository {
 
     public static String loadPomFromJar(final InputStream jarInputStream) {
         try {
-
-            InputStream is = getInputStreamFromJar(jarInputStream,
-                    "META-INF/maven",
-                    "pom.xml");
-            StringBuilder sb = new StringBuilder();
-            for (int c = is.read(); c != -1; c = is.read()) {
-                sb.append((char) c);
-            }
-            return sb.toString();
+            return MavenJarMetadata.read(jarInputStream).getPomXml();
         } catch (IOException e) {
             log.error(e.getMessage());
         }
@@ -494,15 +735,7 @@ public class GuvnorM2Repository {
 
     public static String loadPomPropertiesFromJar(final InputStream jarInputStream) {
         try {
-
-            InputStream is = getInputStreamFromJar(jarInputStream,
-                    "META-INF/maven",
-                    "pom.properties");
-            StringBuilder sb = new StringBuilder();
-            for (int c = is.read(); c != -1; c = is.read()) {
-                sb.append((char) c);
-            }
-            return sb.toString();
+            return MavenJarMetadata.read(jarInputStream).getPomProperties();
         } catch (IOException e) {
             log.error(e.getMessage());
         }
@@ -510,46 +743,51 @@ public class GuvnorM2Repository {
         return null;
     }
 
-    private static InputStream getInputStreamFromJar(final InputStream jarInputStream,
-                                                     final String prefix,
-                                                     final String suffix) throws IOException {
-        ZipInputStream zis = new ZipInputStream(jarInputStream);
-        ZipEntry entry;
+    /**
+     * Adds entries to a JAR. They are appended in place when possible, which leaves the existing entries
+     * untouched, otherwise the JAR is rewritten once with all of them.
+     */
+    private void appendFilesToJar(final Map<String, String> contents,
+                                  final File jarFile) {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        contents.forEach((path, content) -> entries.put(path,
+                content.getBytes(StandardCharsets.UTF_8)));
 
-        while ((entry = zis.getNextEntry()) != null) {
-            final String entryName = entry.getName();
-            if (entryName.startsWith(prefix) && entryName.endsWith(suffix)) {
-                return new ReaderInputStream(new InputStreamReader(zis,
-                        "UTF-8"));
+        try {
+            if (ZipAppender.append(jarFile,
+                    entries)) {
+                return;
             }
+        } catch (IOException e) {
+            log.warn("Unable to append to '" + jarFile.getAbsolutePath() + "', rewriting it: " + e.getMessage());
         }
 
-        throw new FileNotFoundException("Could not find '" + prefix + "/*/" + suffix + "' in the jar.");
-    }
-
-    private File appendFileToJar(final String content,
-                                 final String contentPath,
-                                 final String jarPath) {
-        File originalJarFile = new File(jarPath);
-        File appendedJarFile = new File(jarPath + ".tmp");
+        File appendedJarFile = new File(jarFile.getPath() + ".tmp");
 
-        try (ZipFile war = new ZipFile(originalJarFile);
-             ZipOutputStream append = new ZipOutputStream(new FileOutputStream(appendedJarFile))) {
+        try {
+            try (ZipFile war = new ZipFile(jarFile);
+                 ZipOutputStream append = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(appendedJarFile),
+                         BUFFER_SIZE))) {
 
-            // first, copy contents from existing war
-            copyEntriesFromExistingWar(war,
-                    append);
+                // first, copy contents from existing war
+                copyEntriesFromExistingWar(war,
+                        append);
 
-            // append pom.xml
-            ZipEntry e = new ZipEntry(contentPath);
-            append.putNextEntry(e);
-            append.write(content.getBytes());
-            append.closeEntry();
+                // append pom.xml and pom.properties
+                for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                    append.putNextEntry(new ZipEntry(entry.getKey()));
+                    append.write(entry.getValue());
+                    append.closeEntry();
+                }
+            }
+            Files.move(appendedJarFile.toPath(),
+                    jarFile.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
         } catch (IOException e) {
             log.error(e.getMessage());
+        } finally {
+            appendedJarFile.delete();
         }
-
-        return appendedJarFile;
     }
 
     private void copyEntriesFromExistingWar(final ZipFile war,
@@ -557,10 +795,18 @@ public class GuvnorM2Repository {
         Enumeration<? extends ZipEntry> entries = war.entries();
         while (entries.hasMoreElements()) {
             ZipEntry e = entries.nextElement();
-            append.putNextEntry(e);
+            // The entry is compressed again, so its compressed size must not be carried over
+            ZipEntry copy = new ZipEntry(e.getName());
+            copy.setTime(e.getTime());
+            copy.setComment(e.getComment());
+            copy.setExtra(e.getExtra());
+            append.putNextEntry(copy);
             if (!e.isDirectory()) {
-                IOUtil.copy(war.getInputStream(e),
-                        append);
+                try (InputStream is = war.getInputStream(e)) {
+                    IOUtil.copy(is,
+                            append,
+                            BUFFER_SIZE);
+                }
             }
             append.closeEntry();
         }
@@ -646,16 +892,4 @@ public class GuvnorM2Repository {
                 .collect(Collectors.toList());
         return artifacts.get(0);
     }
-
-    protected static String zipEntryToString(ZipFile zip,
-                                             ZipEntry entry) throws IOException {
-        final InputStream is = zip.getInputStream(entry);
-        final InputStreamReader isr = new InputStreamReader(is,
-                "UTF-8");
-        StringBuilder sb = new StringBuilder();
-        for (int c = isr.read(); c != -1; c = isr.read()) {
-            sb.append((char) c);
-        }
-        return sb.toString();
-    }
 }
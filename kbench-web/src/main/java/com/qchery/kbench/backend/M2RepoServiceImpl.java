@@ -16,6 +16,9 @@
 
 package com.qchery.kbench.backend;
 
+import com.qchery.kbench.backend.cache.GavCache;
+import com.qchery.kbench.backend.events.RepositoryContentChangedEvent;
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
 import org.appformer.maven.support.MinimalPomParser;
 import org.appformer.maven.support.PomModel;
 import org.eclipse.aether.artifact.Artifact;
@@ -26,6 +29,7 @@ import org.guvnor.m2repo.service.M2RepoService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.uberfire.paging.PageResponse;
 
@@ -40,6 +44,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static com.qchery.kbench.backend.repositories.ArtifactRepositoryService.GLOBAL_M2_REPO_NAME;
 import static com.qchery.kbench.backend.repositories.ArtifactRepositoryService.GLOBAL_M2_REPO_URL;
@@ -50,21 +55,37 @@ import static com.qchery.kbench.backend.repositories.ArtifactRepositoryService.G
 public class M2RepoServiceImpl implements M2RepoService,
         ExtendedM2RepoService {
 
+    private static final int DEFAULT_GAV_CACHE_SIZE = 10000;
+
     private Logger logger;
 
     private GuvnorM2Repository repository;
 
+    private GavCache gavCache;
+
     public M2RepoServiceImpl() {
     }
 
     @Autowired
-    public M2RepoServiceImpl(GuvnorM2Repository repository) {
-        this(LoggerFactory.getLogger(M2RepoServiceImpl.class), repository);
+    public M2RepoServiceImpl(GuvnorM2Repository repository,
+                             ArtifactRepositoryProperties repositoryProperties) {
+        this(LoggerFactory.getLogger(M2RepoServiceImpl.class),
+             repository,
+             new GavCache(repositoryProperties.getGavCacheSize()));
     }
 
     public M2RepoServiceImpl(final Logger logger, GuvnorM2Repository repository) {
+        this(logger,
+             repository,
+             new GavCache(DEFAULT_GAV_CACHE_SIZE));
+    }
+
+    public M2RepoServiceImpl(final Logger logger,
+                             GuvnorM2Repository repository,
+                             GavCache gavCache) {
         this.logger = logger;
         this.repository = repository;
+        this.gavCache = gavCache;
 
         if (!isURLValid()) {
             logger.error(String.format("The property %s is not correctly set. The workbench will use a direct file path to the m2 repository and this should only be used when test the workbench.", GLOBAL_M2_REPO_URL));
@@ -76,6 +97,17 @@ public class M2RepoServiceImpl implements M2RepoService,
         repository.deployArtifact(is, gav, true);
     }
 
+    @Override
+    public void deployJar(final File jarFile, final GAV gav) {
+        repository.deployArtifact(jarFile, gav, true);
+    }
+
+    @Override
+    public void deployBatch(final Map<File, GAV> jars,
+                            final Map<File, GAV> poms) {
+        repository.deployBatch(jars, poms);
+    }
+
     @Override
     public void deployJarInternal(final InputStream is,
                                   final GAV gav) {
@@ -88,6 +120,22 @@ public class M2RepoServiceImpl implements M2RepoService,
         repository.deployPom(is, gav);
     }
 
+    /**
+     * Drops the cached GAVs of changed or deleted files of the global repository.
+     */
+    @EventListener
+    public void onContentChanged(final RepositoryContentChangedEvent event) {
+        final String rootDir = repository.getM2RepositoryDir(GLOBAL_M2_REPO_NAME) + File.separator;
+        for (File file : event.getFiles()) {
+            if (file.getPath().startsWith(rootDir)) {
+                final String path = getJarPath(file.getPath(),
+                        File.separator);
+                gavCache.invalidate(path);
+                gavCache.invalidateBelow(path);
+            }
+        }
+    }
+
     @Override
     public String getPomText(final String path) {
         checkPathTraversal(path);
@@ -113,38 +161,40 @@ public class M2RepoServiceImpl implements M2RepoService,
         final Collection<Artifact> files = repository.listArtifacts(filters,
                 fileFormats);
 
-        //Convert files to JarListPageRow
-        final List<JarListPageRow> jarPageRowList = new ArrayList<>();
+        //Convert files to JarListPageRow, the GAV is only resolved for rows that need it
+        final List<ArtifactRow> rows = new ArrayList<>();
         for (Artifact artifact : files) {
             final File file = artifact.getFile();
             JarListPageRow jarListPageRow = new JarListPageRow();
             jarListPageRow.setName(file.getName());
             jarListPageRow.setPath(getJarPath(file.getPath(),
                     File.separator));
-            jarListPageRow.setGav(getGAV(jarListPageRow.getPath()));
-            jarListPageRow.setLastModified(new Date(file.lastModified()));
+            jarListPageRow.setLastModified(new Date(getLastModified(artifact)));
             jarListPageRow.setRepositoryName(artifact.getProperty("repository",
                     "undefined"));
-            jarPageRowList.add(jarListPageRow);
+            rows.add(new ArtifactRow(jarListPageRow,
+                    getSize(artifact)));
         }
 
         //Sort JarListPageRow entries, if required
         if (dataSourceName != null) {
             final int order = (isAscending ? 1 : -1);
             if (dataSourceName.equals(JarListPageRequest.COLUMN_NAME)) {
-                jarPageRowList.sort((o1, o2) -> o1.getName().compareTo(o2.getName()) * order);
+                rows.sort((o1, o2) -> o1.row.getName().compareTo(o2.row.getName()) * order);
             } else if (dataSourceName.equals(JarListPageRequest.COLUMN_PATH)) {
-                jarPageRowList.sort((o1, o2) -> o1.getPath().compareTo(o2.getPath()) * order);
+                rows.sort((o1, o2) -> o1.row.getPath().compareTo(o2.row.getPath()) * order);
             } else if (dataSourceName.equals(JarListPageRequest.COLUMN_GAV)) {
-                jarPageRowList.sort((o1, o2) -> {
-                    final GAV gav1 = o1.getGav();
-                    final GAV gav2 = o2.getGav();
+                //Sorting by GAV needs every GAV, most of them are expected to be cached
+                rows.forEach(this::resolveGAV);
+                rows.sort((o1, o2) -> {
+                    final GAV gav1 = o1.row.getGav();
+                    final GAV gav2 = o2.row.getGav();
                     return gav1.toString().compareToIgnoreCase(gav2.toString()) * order;
                 });
             } else if (dataSourceName.equals(JarListPageRequest.COLUMN_LAST_MODIFIED)) {
-                jarPageRowList.sort((o1, o2) -> {
-                    final Long ft1 = o1.getLastModified().getTime();
-                    final Long ft2 = o2.getLastModified().getTime();
+                rows.sort((o1, o2) -> {
+                    final Long ft1 = o1.row.getLastModified().getTime();
+                    final Long ft2 = o2.row.getLastModified().getTime();
                     return ft1.compareTo(ft2) * order;
                 });
             }
@@ -153,13 +203,15 @@ public class M2RepoServiceImpl implements M2RepoService,
         //Copy request "page" of entries to response
         final Integer pageSize = pageRequest.getPageSize();
         final int startRowIndex = pageRequest.getStartRowIndex();
-        final int endRowIndex = Math.min(jarPageRowList.size(),
-                (pageSize == null ? jarPageRowList.size() : startRowIndex + pageSize));
+        final int endRowIndex = Math.min(rows.size(),
+                (pageSize == null ? rows.size() : startRowIndex + pageSize));
         final List<JarListPageRow> responsePageRowList = new ArrayList<JarListPageRow>();
-        if (startRowIndex < jarPageRowList.size()) {
+        if (startRowIndex < rows.size()) {
             int i = startRowIndex;
-            while (i < endRowIndex && i < jarPageRowList.size()) {
-                responsePageRowList.add(jarPageRowList.get(i));
+            while (i < endRowIndex && i < rows.size()) {
+                final ArtifactRow row = rows.get(i);
+                resolveGAV(row);
+                responsePageRowList.add(row.row);
                 i++;
             }
         }
@@ -173,6 +225,25 @@ public class M2RepoServiceImpl implements M2RepoService,
         return response;
     }
 
+    private void resolveGAV(final ArtifactRow row) {
+        if (row.row.getGav() == null) {
+            final String path = row.row.getPath();
+            row.row.setGav(gavCache.get(path,
+                    row.size,
+                    row.row.getLastModified().getTime(),
+                    () -> getGAV(path)));
+        }
+    }
+
+    private long getSize(final Artifact artifact) {
+        final String size = artifact.getProperty("size",
+                null);
+        if (size == null) {
+            return artifact.getFile().length();
+        }
+        return Long.parseLong(size);
+    }
+
     // The file separator is provided as a parameter so that we can test for correct JAR path creation on both
     // Windows and Linux based Operating Systems in Unit tests running on either platform. See JarPathTest.
     String getJarPath(final String path, final String separator) {
@@ -184,6 +255,15 @@ public class M2RepoServiceImpl implements M2RepoService,
         return jarPath;
     }
 
+    private long getLastModified(final Artifact artifact) {
+        final String lastModified = artifact.getProperty("lastModified",
+                null);
+        if (lastModified == null) {
+            return artifact.getFile().lastModified();
+        }
+        return Long.parseLong(lastModified);
+    }
+
     GAV getGAV(final String path) {
         GAV gav = null;
         InputStream is = null;
@@ -249,4 +329,19 @@ public class M2RepoServiceImpl implements M2RepoService,
             throw new RuntimeException("Invalid path provided!");
         }
     }
+
+    /**
+     * A listed row together with the file size, which is part of the GAV cache key.
+     */
+    private static class ArtifactRow {
+
+        private final JarListPageRow row;
+        private final long size;
+
+        private ArtifactRow(final JarListPageRow row,
+                            final long size) {
+            this.row = row;
+            this.size = size;
+        }
+    }
 }
@@ -0,0 +1,156 @@
+package com.qchery.kbench.backend.cache;
+
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.uberfire.apache.commons.io.FilenameUtils;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps gzip compressed variants of repository files, so text files are compressed once instead of on
+ * every request. A variant is stored next to the relative path of its source in the cache dir and its
+ * name carries the size and last modified time of the source, ie., "maven-metadata.xml.1534567890000-1234.gz".
+ * A changed source therefore never matches an old variant, which is replaced when the new one is written.
+ *
+ * @author Chery
+ * @date 2026/10/18 13:40
+ */
+@Component
+public class CompressedContentCache {
+
+    private static final Logger log = LoggerFactory.getLogger(CompressedContentCache.class);
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final String SUFFIX = ".gz";
+    private static final Pattern VALIDATOR = Pattern.compile("\\d+-\\d+\\.gz");
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    private Path cacheDir;
+
+    @PostConstruct
+    public void init() {
+        if (repositoryProperties.isCompressedCacheEnabled()) {
+            cacheDir = new File(FilenameUtils.separatorsToSystem(repositoryProperties.getCompressedCacheDir()))
+                    .toPath().toAbsolutePath().normalize();
+        }
+    }
+
+    /**
+     * Returns the compressed variant of a file, compressing it if there is no up to date one yet.
+     *
+     * @param repositoryName the repository of the file
+     * @param relativePath   the path of the file relative to the repository root
+     * @param source         the file
+     * @param length         the current length of the file
+     * @param lastModified   the current last modified time of the file
+     * @return the compressed variant or null if the cache is disabled or the file can't be compressed
+     */
+    public File get(final String repositoryName,
+                    final String relativePath,
+                    final File source,
+                    final long length,
+                    final long lastModified) {
+        if (cacheDir == null || length > repositoryProperties.getCompressedCacheMaxFileSize()) {
+            return null;
+        }
+        final Path sourceDir = cacheDir.resolve(repositoryName).resolve(relativePath).getParent();
+        if (sourceDir == null || !sourceDir.startsWith(cacheDir)) {
+            return null;
+        }
+        final String prefix = source.getName() + ".";
+        final Path variant = sourceDir.resolve(prefix + lastModified + "-" + length + SUFFIX);
+        if (Files.isRegularFile(variant)) {
+            return variant.toFile();
+        }
+
+        try {
+            Files.createDirectories(sourceDir);
+            final Path tmp = Files.createTempFile(sourceDir,
+                                                  prefix,
+                                                  ".tmp");
+            try {
+                try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(tmp),
+                                                            BUFFER_SIZE)) {
+                    Files.copy(source.toPath(),
+                               os);
+                }
+                Files.move(tmp,
+                           variant,
+                           StandardCopyOption.REPLACE_EXISTING,
+                           StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            removeOutdated(sourceDir,
+                           prefix,
+                           variant);
+            return variant.toFile();
+        } catch (IOException e) {
+            log.warn("Unable to cache compressed variant of {}: {}",
+                     source,
+                     e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Removes the variants of a file or, for a directory, of everything below it.
+     */
+    public void invalidate(final String repositoryName,
+                           final String relativePath) {
+        if (cacheDir == null) {
+            return;
+        }
+        final Path path = cacheDir.resolve(repositoryName).resolve(relativePath).normalize();
+        if (!path.startsWith(cacheDir) || path.getParent() == null) {
+            return;
+        }
+        try {
+            if (Files.isDirectory(path)) {
+                FileUtils.deleteDirectory(path.toFile());
+            } else {
+                removeOutdated(path.getParent(),
+                               path.getFileName() + ".",
+                               null);
+            }
+        } catch (IOException e) {
+            log.warn("Unable to invalidate compressed variants of {}: {}",
+                     path,
+                     e.getMessage());
+        }
+    }
+
+    private static void removeOutdated(final Path dir,
+                                       final String prefix,
+                                       final Path current) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(dir,
+                                                                       path -> {
+                                                                           final String name = path.getFileName().toString();
+                                                                           return name.startsWith(prefix)
+                                                                                   && VALIDATOR.matcher(name.substring(prefix.length())).matches()
+                                                                                   && !path.equals(current);
+                                                                       })) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.qchery.kbench.backend.cache;
+
+import org.guvnor.common.services.project.model.GAV;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache of the GAVs parsed from the POMs of repository files. An entry is only valid for the
+ * size and last modified time the file had when it was parsed, so an overwritten file is parsed again.
+ *
+ * @author Chery
+ * @date 2026/10/18 11:05
+ */
+public class GavCache {
+
+    private final Map<String, CachedGav> entries;
+
+    public GavCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, CachedGav>(16,
+                                                            0.75f,
+                                                            true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedGav> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return the cached GAV or null if there is none for this version of the file
+     */
+    public GAV get(final String path,
+                   final long size,
+                   final long lastModified) {
+        final CachedGav entry;
+        synchronized (entries) {
+            entry = entries.get(path);
+        }
+        if (entry == null || entry.size != size || entry.lastModified != lastModified) {
+            return null;
+        }
+        return entry.gav;
+    }
+
+    /**
+     * Returns the cached GAV or parses and caches it. Parsing happens outside of the cache lock.
+     */
+    public GAV get(final String path,
+                   final long size,
+                   final long lastModified,
+                   final Supplier<GAV> loader) {
+        GAV gav = get(path,
+                      size,
+                      lastModified);
+        if (gav == null) {
+            gav = loader.get();
+            put(path,
+                size,
+                lastModified,
+                gav);
+        }
+        return gav;
+    }
+
+    public void put(final String path,
+                    final long size,
+                    final long lastModified,
+                    final GAV gav) {
+        synchronized (entries) {
+            entries.put(path,
+                        new CachedGav(size,
+                                      lastModified,
+                                      gav));
+        }
+    }
+
+    public void invalidate(final String path) {
+        synchronized (entries) {
+            entries.remove(path);
+        }
+    }
+
+    /**
+     * Removes the GAVs of every file below a directory.
+     * @param dir the directory path, in the form the file paths are cached with
+     */
+    public void invalidateBelow(final String dir) {
+        final String prefix = dir.endsWith("/") ? dir : dir + "/";
+        synchronized (entries) {
+            entries.keySet().removeIf(path -> path.startsWith(prefix));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class CachedGav {
+
+        private final long size;
+        private final long lastModified;
+        private final GAV gav;
+
+        private CachedGav(final long size,
+                          final long lastModified,
+                          final GAV gav) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.gav = gav;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.qchery.kbench.backend.cache;
+
+import com.qchery.kbench.backend.events.RepositoryContentChangedEvent;
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the content of small, frequently requested repository files in memory, ie., maven-metadata.xml,
+ * POMs and checksums, so serving them needs neither path resolution nor file system calls. The cache is
+ * bounded by the bytes it holds and evicts the least recently used files first.
+ * <p>
+ * Files are dropped when a {@link RepositoryContentChangedEvent} reports them as changed. Files changed
+ * behind the back of the application are picked up once their entry expires.
+ *
+ * @author Chery
+ * @date 2026/10/18 14:25
+ */
+@Component
+public class HotFileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HotFileCache.class);
+
+    /**
+     * Approximate heap cost of an entry besides its content.
+     */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    private final LinkedHashMap<String, CachedFile> entries = new LinkedHashMap<>(16,
+                                                                                  0.75f,
+                                                                                  true);
+    private long weight;
+    private volatile long generation;
+
+    private boolean enabled;
+    private long maxWeight;
+    private long maxFileSize;
+    private long ttl;
+
+    @PostConstruct
+    public void init() {
+        enabled = repositoryProperties.isHotFileCacheEnabled();
+        maxWeight = repositoryProperties.getHotFileCacheMaxSize();
+        maxFileSize = repositoryProperties.getHotFileCacheMaxFileSize();
+        ttl = repositoryProperties.getHotFileCacheTtl();
+    }
+
+    /**
+     * @param repositoryName the repository of the file
+     * @param path           the requested path of the file
+     * @return the cached file or null if it is not cached or has expired
+     */
+    public CachedFile get(final String repositoryName,
+                          final String path) {
+        if (!enabled) {
+            return null;
+        }
+        final String key = key(repositoryName,
+                               path);
+        synchronized (entries) {
+            final CachedFile cached = entries.get(key);
+            if (cached != null && cached.expires < System.currentTimeMillis()) {
+                remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    /**
+     * Changes every time cached files are invalidated. Read it before the file is inspected and pass it to
+     * {@link #load(String, String, File, long, long, String, boolean, long)}, so a file that changes in
+     * between is not cached with outdated content.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Reads a file into the cache.
+     *
+     * @param repositoryName the repository of the file
+     * @param path           the requested path of the file
+     * @param file           the file
+     * @param length         the length of the file when it was inspected
+     * @param lastModified   the last modified time of the file when it was inspected
+     * @param eTag           the ETag to serve the file with
+     * @param compressible   whether a gzip compressed copy has to be kept as well
+     * @param generation     the {@link #getGeneration() generation} before the file was inspected
+     * @return the cached file or null if the file is too large or can't be read
+     */
+    public CachedFile load(final String repositoryName,
+                           final String path,
+                           final File file,
+                           final long length,
+                           final long lastModified,
+                           final String eTag,
+                           final boolean compressible,
+                           final long generation) {
+        if (!enabled || length > maxFileSize) {
+            return null;
+        }
+        final byte[] content;
+        final byte[] compressed;
+        try {
+            content = Files.readAllBytes(file.toPath());
+            compressed = compressible ? compress(content) : null;
+        } catch (IOException e) {
+            log.warn("Unable to cache {}: {}",
+                     file,
+                     e.getMessage());
+            return null;
+        }
+        if (content.length != length) {
+            // Written while it was being read
+            return null;
+        }
+        final CachedFile cached = new CachedFile(file.getAbsoluteFile().toPath().normalize().toString(),
+                                                 file.getName(),
+                                                 content,
+                                                 compressed,
+                                                 lastModified,
+                                                 eTag,
+                                                 System.currentTimeMillis() + ttl);
+        synchronized (entries) {
+            if (generation == this.generation) {
+                final String key = key(repositoryName,
+                                       path);
+                remove(key);
+                entries.put(key,
+                            cached);
+                weight += cached.weight();
+                evict();
+            }
+        }
+        return cached;
+    }
+
+    @EventListener
+    public void onContentChanged(final RepositoryContentChangedEvent event) {
+        invalidate(event.getFiles().toArray(new File[0]));
+    }
+
+    /**
+     * Removes the given files or, for directories, everything below them.
+     */
+    public void invalidate(final File... files) {
+        final String[] paths = new String[files.length];
+        for (int i = 0; i < files.length; i++) {
+            paths[i] = files[i].getAbsoluteFile().toPath().normalize().toString();
+        }
+        synchronized (entries) {
+            generation++;
+            final Iterator<CachedFile> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                final CachedFile cached = iterator.next();
+                if (isBelowAny(cached.path,
+                               paths)) {
+                    weight -= cached.weight();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the bytes held by the cache
+     */
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    private void remove(final String key) {
+        final CachedFile removed = entries.remove(key);
+        if (removed != null) {
+            weight -= removed.weight();
+        }
+    }
+
+    private void evict() {
+        final Iterator<CachedFile> iterator = entries.values().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight();
+            iterator.remove();
+        }
+    }
+
+    private static boolean isBelowAny(final String path,
+                                      final String[] paths) {
+        for (String changed : paths) {
+            if (path.equals(changed)
+                    || (path.startsWith(changed) && path.charAt(changed.length()) == File.separatorChar)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String key(final String repositoryName,
+                              final String path) {
+        return repositoryName + ":" + path;
+    }
+
+    private static byte[] compress(final byte[] content) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64,
+                                                                               content.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static class CachedFile {
+
+        private final String path;
+        private final String name;
+        private final byte[] content;
+        private final byte[] compressed;
+        private final long lastModified;
+        private final String eTag;
+        private final long expires;
+
+        private CachedFile(final String path,
+                           final String name,
+                           final byte[] content,
+                           final byte[] compressed,
+                           final long lastModified,
+                           final String eTag,
+                           final long expires) {
+            this.path = path;
+            this.name = name;
+            this.content = content;
+            this.compressed = compressed;
+            this.lastModified = lastModified;
+            this.eTag = eTag;
+            this.expires = expires;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the content, callers must not modify it
+         */
+        public byte[] getContent() {
+            return content;
+        }
+
+        /**
+         * @return the gzip compressed content or null if the file is not compressible
+         */
+        public byte[] getCompressed() {
+            return compressed;
+        }
+
+        public long getLength() {
+            return content.length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+
+        private long weight() {
+            return ENTRY_OVERHEAD + content.length + (compressed == null ? 0 : compressed.length);
+        }
+    }
+}
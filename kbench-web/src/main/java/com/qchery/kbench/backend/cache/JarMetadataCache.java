@@ -0,0 +1,94 @@
+package com.qchery.kbench.backend.cache;
+
+import com.qchery.kbench.backend.zip.MavenJarMetadata;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of the Maven metadata read from repository JARs. Like {@link GavCache} an entry is only valid
+ * for the size and last modified time the JAR had when it was read, so a redeployed JAR is read again.
+ *
+ * @author Chery
+ * @date 2026/10/18 18:55
+ */
+public class JarMetadataCache {
+
+    private final Map<String, CachedMetadata> entries;
+
+    public JarMetadataCache(final int maxEntries) {
+        this.entries = new LinkedHashMap<String, CachedMetadata>(16,
+                                                                 0.75f,
+                                                                 true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedMetadata> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached metadata of the JAR or reads and caches it. Reading happens outside of the cache lock.
+     */
+    public MavenJarMetadata get(final File jarFile) throws IOException {
+        final String path = jarFile.getAbsolutePath();
+        final long size = jarFile.length();
+        final long lastModified = jarFile.lastModified();
+
+        final CachedMetadata entry;
+        synchronized (entries) {
+            entry = entries.get(path);
+        }
+        if (entry != null && entry.size == size && entry.lastModified == lastModified) {
+            return entry.metadata;
+        }
+
+        final MavenJarMetadata metadata = MavenJarMetadata.read(jarFile);
+        synchronized (entries) {
+            entries.put(path,
+                        new CachedMetadata(size,
+                                           lastModified,
+                                           metadata));
+        }
+        return metadata;
+    }
+
+    public void invalidate(final File jarFile) {
+        synchronized (entries) {
+            entries.remove(jarFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Removes the metadata of every JAR below a directory, ie., of deleted artifacts.
+     */
+    public void invalidateBelow(final File dir) {
+        final String prefix = dir.getAbsolutePath() + File.separator;
+        synchronized (entries) {
+            entries.keySet().removeIf(path -> path.startsWith(prefix));
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class CachedMetadata {
+
+        private final long size;
+        private final long lastModified;
+        private final MavenJarMetadata metadata;
+
+        private CachedMetadata(final long size,
+                               final long lastModified,
+                               final MavenJarMetadata metadata) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.metadata = metadata;
+        }
+    }
+}
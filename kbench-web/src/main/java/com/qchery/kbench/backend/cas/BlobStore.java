@@ -0,0 +1,285 @@
+package com.qchery.kbench.backend.cas;
+
+import com.qchery.kbench.backend.io.RepositoryFiles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Stores file content by its SHA-256, ie., "ab/cd/abcd...", and shares it with the files of a repository
+ * through hard links. Interning a file either makes it the blob of its content or replaces it with a link to
+ * the blob which already has that content, so identical files take the space of one however many paths they
+ * have. Readers keep opening the repository paths, which are the blobs.
+ * <p>
+ * A blob is garbage once no repository path links to it anymore, which is when its link count drops to one.
+ * Files linked to a blob must never be written in place, as that would change every path sharing the blob;
+ * writers either replace files, like PUT does, or {@link #detach(Path)} them first.
+ * <p>
+ * Hard links need a POSIX file system, with the store on the same file system as the repository. If that's
+ * not the case the store is unavailable and files are left as they are.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:10
+ */
+public class BlobStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlobStore.class);
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final String LINK_COUNT = "unix:nlink";
+
+    private final Path root;
+    private final boolean available;
+
+    /**
+     * @param root    the dir of the blobs
+     * @param peerDir a dir on the file system the files to intern are on
+     */
+    public BlobStore(final Path root,
+                     final Path peerDir) {
+        this.root = root.toAbsolutePath().normalize();
+        this.available = probe(this.root,
+                               peerDir);
+    }
+
+    /**
+     * @return true if files can be interned
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /**
+     * Shares the content of a file with the blob of its content. Files already linked to a blob are skipped
+     * without being read.
+     *
+     * @return true if the file was replaced by a link to an existing blob
+     */
+    public boolean intern(final Path file) throws IOException {
+        if (!available || !Files.isRegularFile(file,
+                                               LinkOption.NOFOLLOW_LINKS) || linkCount(file) > 1) {
+            return false;
+        }
+        final Path blob = getBlob(sha256(file));
+        Files.createDirectories(blob.getParent());
+        // A blob may be collected between the attempts, then the file becomes the blob after all
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                Files.createLink(blob,
+                                 file);
+                return false;
+            } catch (FileAlreadyExistsException e) {
+                // Stored before, the file is replaced with a link to the blob below
+            }
+            final Path tmp = tempFile(file);
+            try {
+                // The blob may have been written in place, or the file replaced since it was hashed
+                if (!sameContent(blob,
+                                 file)) {
+                    log.warn("Blob {} doesn't match the content of {}, leaving the file as it is",
+                             blob,
+                             file);
+                    return false;
+                }
+                Files.createLink(tmp,
+                                 blob);
+                RepositoryFiles.publish(tmp,
+                                        file);
+                return true;
+            } catch (NoSuchFileException e) {
+                log.debug("Blob {} was collected while interning {}",
+                          blob,
+                          file);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gives a file linked to a blob a content of its own, so it can be written in place.
+     */
+    public void detach(final Path file) throws IOException {
+        if (!available || !Files.isRegularFile(file,
+                                               LinkOption.NOFOLLOW_LINKS) || linkCount(file) <= 1) {
+            return;
+        }
+        final Path tmp = tempFile(file);
+        try {
+            Files.copy(file,
+                       tmp,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.COPY_ATTRIBUTES);
+            RepositoryFiles.publish(tmp,
+                                    file);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the blobs no repository path links to anymore.
+     *
+     * @return the bytes reclaimed
+     */
+    public long collectGarbage() throws IOException {
+        if (!available || !Files.isDirectory(root)) {
+            return 0;
+        }
+        final long[] collected = new long[2];
+        Files.walkFileTree(root,
+                           new SimpleFileVisitor<Path>() {
+                               @Override
+                               public FileVisitResult visitFile(final Path file,
+                                                                final BasicFileAttributes attrs) throws IOException {
+                                   if (attrs.isRegularFile() && linkCount(file) == 1 && Files.deleteIfExists(file)) {
+                                       collected[0]++;
+                                       collected[1] += attrs.size();
+                                   }
+                                   return FileVisitResult.CONTINUE;
+                               }
+
+                               @Override
+                               public FileVisitResult visitFileFailed(final Path file,
+                                                                      final IOException e) {
+                                   return FileVisitResult.CONTINUE;
+                               }
+                           });
+        if (collected[0] > 0) {
+            log.info("Collected {} unreferenced blobs of {}, reclaimed {} bytes",
+                     collected[0],
+                     root,
+                     collected[1]);
+        }
+        return collected[1];
+    }
+
+    Path getBlob(final String hash) {
+        return root.resolve(hash.substring(0,
+                                           2))
+                .resolve(hash.substring(2,
+                                        4))
+                .resolve(hash);
+    }
+
+    private static int linkCount(final Path file) throws IOException {
+        return (Integer) Files.getAttribute(file,
+                                            LINK_COUNT,
+                                            LinkOption.NOFOLLOW_LINKS);
+    }
+
+    private static String sha256(final Path file) throws IOException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (InputStream is = Files.newInputStream(file)) {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer,
+                              0,
+                              read);
+            }
+        }
+        return RepositoryFiles.toHex(digest.digest());
+    }
+
+    private static boolean sameContent(final Path blob,
+                                       final Path file) throws IOException {
+        if (Files.size(blob) != Files.size(file)) {
+            return false;
+        }
+        try (InputStream blobStream = Files.newInputStream(blob);
+             InputStream fileStream = Files.newInputStream(file)) {
+            final byte[] blobBuffer = new byte[BUFFER_SIZE];
+            final byte[] fileBuffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = readFully(blobStream,
+                                     blobBuffer)) > 0) {
+                if (readFully(fileStream,
+                              fileBuffer) != read) {
+                    return false;
+                }
+                for (int i = 0; i < read; i++) {
+                    if (blobBuffer[i] != fileBuffer[i]) {
+                        return false;
+                    }
+                }
+            }
+            return fileStream.read() == -1;
+        }
+    }
+
+    /**
+     * @return the bytes read into the buffer, which is only not filled at the end of the stream
+     */
+    private static int readFully(final InputStream is,
+                                 final byte[] buffer) throws IOException {
+        int filled = 0;
+        int read;
+        while (filled < buffer.length && (read = is.read(buffer,
+                                                         filled,
+                                                         buffer.length - filled)) != -1) {
+            filled += read;
+        }
+        return filled;
+    }
+
+    /**
+     * A hidden name next to the file, which the repository index skips.
+     */
+    private static Path tempFile(final Path file) {
+        return file.resolveSibling("." + file.getFileName() + "." + Long.toHexString(System.nanoTime()) + ".part");
+    }
+
+    private static boolean probe(final Path root,
+                                 final Path peerDir) {
+        Path file = null;
+        Path link = null;
+        try {
+            Files.createDirectories(root);
+            file = Files.createTempFile(peerDir,
+                                        ".cas-probe-",
+                                        ".part");
+            link = root.resolve(file.getFileName());
+            Files.createLink(link,
+                             file);
+            return linkCount(file) == 2;
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException | ClassCastException e) {
+            log.warn("Content addressable storage in {} is unavailable, files of {} are stored as they are: {}",
+                     root,
+                     peerDir,
+                     e.toString());
+            return false;
+        } finally {
+            try {
+                if (link != null) {
+                    Files.deleteIfExists(link);
+                }
+                if (file != null) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                log.debug("Unable to remove probe file: {}",
+                          e.getMessage());
+            }
+        }
+    }
+}
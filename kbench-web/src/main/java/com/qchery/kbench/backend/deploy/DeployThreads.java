@@ -0,0 +1,62 @@
+package com.qchery.kbench.backend.deploy;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread helpers shared by the deployment executors.
+ *
+ * @author Chery
+ * @date 2026/10/18 16:30
+ */
+final class DeployThreads {
+
+    private DeployThreads() {
+    }
+
+    /**
+     * Runs the task with the given context class loader. The Maven embedder and Aether look up their
+     * components through it, so deployments must see the one of the thread which handed them over.
+     */
+    static Runnable withContextClassLoader(final ClassLoader classLoader,
+                                           final Runnable task) {
+        return () -> {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                task.run();
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        };
+    }
+
+    /**
+     * Like {@link #withContextClassLoader(ClassLoader, Runnable)} for tasks with a result.
+     */
+    static <T> Callable<T> callWithContextClassLoader(final ClassLoader classLoader,
+                                                      final Callable<T> task) {
+        return () -> {
+            final Thread thread = Thread.currentThread();
+            final ClassLoader previous = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
+            try {
+                return task.call();
+            } finally {
+                thread.setContextClassLoader(previous);
+            }
+        };
+    }
+
+    static ThreadFactory threadFactory(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package com.qchery.kbench.backend.deploy;
+
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.qchery.kbench.backend.deploy.DeployThreads.threadFactory;
+import static com.qchery.kbench.backend.deploy.DeployThreads.withContextClassLoader;
+
+/**
+ * Bounded queue of uploads waiting to be deployed, worked off by a fixed number of threads. Uploads are
+ * refused rather than queued without limit, so callers can push back on clients.
+ *
+ * @author Chery
+ * @date 2026/10/18 16:35
+ */
+@Component
+public class DeploymentQueue {
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(repositoryProperties.getUploadThreads(),
+                                          repositoryProperties.getUploadThreads(),
+                                          0L,
+                                          TimeUnit.MILLISECONDS,
+                                          new ArrayBlockingQueue<>(repositoryProperties.getUploadQueueCapacity()),
+                                          threadFactory("kbench-upload-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return true if there is no room for another upload, checked before reading one in
+     */
+    public boolean isFull() {
+        return executor.getQueue().remainingCapacity() == 0
+                && executor.getActiveCount() >= executor.getMaximumPoolSize();
+    }
+
+    /**
+     * @return true if the job was queued, false if the queue is full
+     */
+    public boolean submit(final Runnable job) {
+        try {
+            executor.execute(withContextClassLoader(Thread.currentThread().getContextClassLoader(),
+                                                    job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.qchery.kbench.backend.deploy;
+
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps track of the deployments running in the background. Finished deployments are forgotten once they
+ * are older than the configured retention.
+ *
+ * @author Chery
+ * @date 2026/10/18 15:40
+ */
+@Component
+public class DeploymentRegistry {
+
+    private final Map<String, DeploymentStatus> deployments = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    /**
+     * @param gav the deployed GAV or null if it is not known yet
+     * @return the status of the new deployment
+     */
+    public DeploymentStatus register(final String gav) {
+        purge();
+        final DeploymentStatus status = new DeploymentStatus(UUID.randomUUID().toString(),
+                                                             gav);
+        deployments.put(status.getId(),
+                        status);
+        return status;
+    }
+
+    /**
+     * @return the status or null if the deployment is unknown or expired
+     */
+    public DeploymentStatus get(final String id) {
+        return deployments.get(id);
+    }
+
+    /**
+     * @return the known deployments of a GAV, latest first
+     */
+    public List<DeploymentStatus> find(final String gav) {
+        return deployments.values()
+                .stream()
+                .filter(status -> gav == null || gav.equals(status.getGav()))
+                .sorted(Comparator.comparingLong(DeploymentStatus::getCreated).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void purge() {
+        final long expired = System.currentTimeMillis() - repositoryProperties.getDeploymentStatusRetention();
+        deployments.values().removeIf(status -> status.isDone() && status.getFinished() < expired);
+    }
+}
@@ -0,0 +1,109 @@
+package com.qchery.kbench.backend.deploy;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Progress of a deployment which runs in the background, as reported by the deployment status endpoint.
+ *
+ * @author Chery
+ * @date 2026/10/18 15:30
+ */
+public class DeploymentStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    private final String id;
+    private final long created;
+    private final Map<String, String> failures = new LinkedHashMap<>();
+    private volatile String gav;
+    private volatile State state = State.QUEUED;
+    private volatile String message;
+    private volatile long started;
+    private volatile long finished;
+
+    DeploymentStatus(final String id,
+                     final String gav) {
+        this.id = id;
+        this.gav = gav;
+        this.created = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the deployed GAV, ie., "org.kie:example:1.0", or null if it is not known yet
+     */
+    public String getGav() {
+        return gav;
+    }
+
+    public void setGav(final String gav) {
+        this.gav = gav;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the error of every repository the deployment failed for, by repository name
+     */
+    public Map<String, String> getFailures() {
+        synchronized (failures) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(failures));
+        }
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getStarted() {
+        return started;
+    }
+
+    public long getFinished() {
+        return finished;
+    }
+
+    public boolean isDone() {
+        return state == State.SUCCEEDED || state == State.FAILED;
+    }
+
+    public void running() {
+        this.started = System.currentTimeMillis();
+        this.state = State.RUNNING;
+    }
+
+    public void succeeded(final String message) {
+        this.message = message;
+        this.finished = System.currentTimeMillis();
+        this.state = State.SUCCEEDED;
+    }
+
+    public void failed(final String message) {
+        this.message = message;
+        this.finished = System.currentTimeMillis();
+        this.state = State.FAILED;
+    }
+
+    public void failed(final RepositoryDeploymentException e) {
+        synchronized (failures) {
+            failures.putAll(e.getFailures());
+        }
+        failed(e.getMessage());
+    }
+}
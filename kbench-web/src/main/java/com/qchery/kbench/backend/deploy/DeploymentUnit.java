@@ -0,0 +1,42 @@
+package com.qchery.kbench.backend.deploy;
+
+import org.eclipse.aether.artifact.Artifact;
+import org.guvnor.common.services.project.model.GAV;
+
+/**
+ * The artifacts of one GAV within a batch deployment, together with the POM they were built from.
+ *
+ * @author Chery
+ * @date 2026/10/18 19:20
+ */
+public final class DeploymentUnit {
+
+    private final GAV gav;
+    private final String pom;
+    private final Artifact[] artifacts;
+
+    /**
+     * @param gav       the GAV of the artifacts
+     * @param pom       the POM of the artifacts, may be null
+     * @param artifacts the artifacts
+     */
+    public DeploymentUnit(final GAV gav,
+                          final String pom,
+                          final Artifact... artifacts) {
+        this.gav = gav;
+        this.pom = pom;
+        this.artifacts = artifacts;
+    }
+
+    public GAV getGav() {
+        return gav;
+    }
+
+    public String getPom() {
+        return pom;
+    }
+
+    public Artifact[] getArtifacts() {
+        return artifacts;
+    }
+}
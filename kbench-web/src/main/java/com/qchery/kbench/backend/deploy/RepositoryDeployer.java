@@ -0,0 +1,508 @@
+package com.qchery.kbench.backend.deploy;
+
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import com.qchery.kbench.backend.repositories.ArtifactRepository;
+import com.qchery.kbench.backend.repositories.DistributionManagementArtifactRepository;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.aether.artifact.Artifact;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.qchery.kbench.backend.deploy.DeployThreads.callWithContextClassLoader;
+import static com.qchery.kbench.backend.deploy.DeployThreads.threadFactory;
+import static com.qchery.kbench.backend.deploy.DeployThreads.withContextClassLoader;
+
+/**
+ * Deploys artifacts to several repositories concurrently, so a deployment takes as long as the slowest
+ * repository instead of all of them together. Every repository gets its own timeout, which includes the time
+ * its deployment waits for a deployment thread, and the deployment only fails once all repositories are done,
+ * reporting every repository it failed for. A deployment which timed out is cancelled and waited for a while
+ * to stop. One which ignores the interrupt is abandoned, it deploys links or copies of the artifact files of its
+ * own, so the caller can still release its locks and remove its files.
+ * <p>
+ * If enabled, the distribution management repository is deployed to in the background, as it usually is a
+ * remote one. Its progress can be followed through the {@link DeploymentRegistry}.
+ *
+ * @author Chery
+ * @date 2026/10/18 15:45
+ */
+@Component
+public class RepositoryDeployer {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryDeployer.class);
+
+    private static final int ASYNC_QUEUE_CAPACITY = 1000;
+
+    // How long cancelled deployments are waited for to stop, before they are abandoned
+    private static final long STOP_TIMEOUT = 30 * 1000;
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    @Autowired
+    private DeploymentRegistry deploymentRegistry;
+
+    private ExecutorService deployExecutor;
+    private ExecutorService asyncDeployExecutor;
+
+    @PostConstruct
+    public void init() {
+        deployExecutor = Executors.newFixedThreadPool(repositoryProperties.getDeployThreads(),
+                                                      threadFactory("kbench-deploy-"));
+        asyncDeployExecutor = new ThreadPoolExecutor(repositoryProperties.getAsyncDeployThreads(),
+                                                     repositoryProperties.getAsyncDeployThreads(),
+                                                     0L,
+                                                     TimeUnit.MILLISECONDS,
+                                                     new LinkedBlockingQueue<>(ASYNC_QUEUE_CAPACITY),
+                                                     threadFactory("kbench-async-deploy-"));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        asyncDeployExecutor.shutdown();
+        deployExecutor.shutdown();
+    }
+
+    /**
+     * Deploys artifacts to the given repositories.
+     *
+     * @param gav          the deployed GAV
+     * @param repositories the repositories to deploy to
+     * @param pom          the POM of the artifacts, may be null
+     * @param artifacts    the artifacts, their files only have to exist until this returns
+     * @return the status of the repositories deployed to in the background or null if there are none
+     * @throws RepositoryDeploymentException if the deployment failed for any of the other repositories
+     */
+    public DeploymentStatus deploy(final GAV gav,
+                                   final List<? extends ArtifactRepository> repositories,
+                                   final String pom,
+                                   final Artifact... artifacts) {
+        final List<DeploymentUnit> units = Collections.singletonList(new DeploymentUnit(gav,
+                                                                                        pom,
+                                                                                        artifacts));
+        final Map<ArtifactRepository, List<DeploymentUnit>> unitsNow = new LinkedHashMap<>();
+        final List<ArtifactRepository> repositoriesLater = new ArrayList<>();
+        for (ArtifactRepository repository : repositories) {
+            if (isDeployedInBackground(repository)) {
+                repositoriesLater.add(repository);
+            } else {
+                unitsNow.put(repository,
+                             units);
+            }
+        }
+
+        final DeploymentStatus status = repositoriesLater.isEmpty() ? null : deployInBackground(gav,
+                                                                                                repositoriesLater,
+                                                                                                pom,
+                                                                                                artifacts);
+        deployEach(gav.toString(),
+                   unitsNow);
+        return status;
+    }
+
+    /**
+     * Deploys the artifacts of several GAVs with a single request per repository, so every repository merges
+     * its metadata and commits the artifacts once for the whole batch. Distribution management repositories
+     * are the exception, as the POM of every GAV may name another one, so they still get a request per GAV.
+     *
+     * @param name  the name of the batch used in error messages
+     * @param units the GAVs to deploy to each repository, their files only have to exist until this returns
+     * @return the statuses of the deployments running in the background, if any
+     * @throws RepositoryDeploymentException if the deployment failed for any of the other repositories
+     */
+    public List<DeploymentStatus> deployBatch(final String name,
+                                              final Map<? extends ArtifactRepository, List<DeploymentUnit>> units) {
+        final List<DeploymentStatus> statuses = new ArrayList<>();
+        final Map<ArtifactRepository, List<DeploymentUnit>> unitsNow = new LinkedHashMap<>();
+        for (Map.Entry<? extends ArtifactRepository, List<DeploymentUnit>> entry : units.entrySet()) {
+            if (isDeployedInBackground(entry.getKey())) {
+                for (DeploymentUnit unit : entry.getValue()) {
+                    statuses.add(deployInBackground(unit.getGav(),
+                                                    Collections.singletonList(entry.getKey()),
+                                                    unit.getPom(),
+                                                    unit.getArtifacts()));
+                }
+            } else {
+                unitsNow.put(entry.getKey(),
+                             entry.getValue());
+            }
+        }
+
+        deployEach(name,
+                   unitsNow);
+        return statuses;
+    }
+
+    /**
+     * Applies a function to every item concurrently on the deployment threads, ie., to resolve the GAVs of
+     * a batch, and waits for all of them.
+     *
+     * @return the results in the order of the items
+     */
+    public <T, R> List<R> mapEach(final List<T> items,
+                                  final Function<T, R> mapper) {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final List<Future<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(deployExecutor.submit(callWithContextClassLoader(classLoader,
+                                                                         () -> mapper.apply(item))));
+        }
+
+        final List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new RuntimeException(e);
+        }
+        return results;
+    }
+
+    /**
+     * Deploys the units of every repository concurrently and waits for all of them. Every deployment gets
+     * links or copies of the artifact files of its own, which it removes once it stopped.
+     *
+     * @throws RepositoryDeploymentException if the deployment failed or timed out for any repository
+     */
+    private void deployEach(final String deploymentName,
+                            final Map<ArtifactRepository, List<DeploymentUnit>> units) {
+        if (units.isEmpty()) {
+            return;
+        }
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final Map<String, Throwable> failures = new LinkedHashMap<>();
+        final Map<ArtifactRepository, DeployTask> tasks = new LinkedHashMap<>();
+        for (Map.Entry<ArtifactRepository, List<DeploymentUnit>> entry : units.entrySet()) {
+            final ArtifactRepository repository = entry.getKey();
+            Path stagingDir = null;
+            try {
+                stagingDir = Files.createTempDirectory("kbench-deploy-");
+                final List<DeploymentUnit> stagedUnits = stage(stagingDir,
+                                                               entry.getValue());
+                final DeployTask task = new DeployTask(deploymentName + " to " + repository.getName(),
+                                                       stagingDir,
+                                                       withContextClassLoader(classLoader,
+                                                                              () -> deployUnits(repository,
+                                                                                                stagedUnits)));
+                task.future = deployExecutor.submit(task);
+                tasks.put(repository,
+                          task);
+            } catch (IOException | RejectedExecutionException e) {
+                if (stagingDir != null) {
+                    FileUtils.deleteQuietly(stagingDir.toFile());
+                }
+                failures.put(repository.getName(),
+                             e);
+            }
+        }
+
+        boolean interrupted = false;
+        for (Map.Entry<ArtifactRepository, DeployTask> entry : tasks.entrySet()) {
+            final String name = entry.getKey().getName();
+            final DeployTask task = entry.getValue();
+            final long timeout = getTimeout(name);
+            try {
+                task.get(timeout);
+            } catch (TimeoutException e) {
+                task.cancel();
+                failures.put(name,
+                             new TimeoutException("Timed out after " + timeout + " ms"));
+            } catch (ExecutionException e) {
+                failures.put(name,
+                             e.getCause());
+            } catch (InterruptedException e) {
+                interrupted = true;
+                tasks.values().forEach(DeployTask::cancel);
+                failures.put(name,
+                             e);
+                break;
+            }
+        }
+
+        // The locks of the caller are released once this returns, deployments which don't stop are abandoned
+        final long stopDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT);
+        tasks.values().forEach(task -> task.awaitStopped(stopDeadline));
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new RepositoryDeploymentException(deploymentName,
+                                                    failures);
+        }
+    }
+
+    private DeploymentStatus deployInBackground(final GAV gav,
+                                                final List<ArtifactRepository> repositories,
+                                                final String pom,
+                                                final Artifact... artifacts) {
+        final DeploymentStatus status = deploymentRegistry.register(gav.toString());
+        final String names = repositories.stream().map(ArtifactRepository::getName).collect(Collectors.joining(", "));
+
+        // The caller removes the artifact files once the synchronous part of the deployment is done
+        final Path stagingDir;
+        final Artifact[] stagedArtifacts;
+        try {
+            stagingDir = Files.createTempDirectory("kbench-deploy-");
+            stagedArtifacts = stage(stagingDir,
+                                    artifacts);
+        } catch (IOException e) {
+            log.error("Unable to stage {} for deployment to {}",
+                      gav,
+                      names,
+                      e);
+            status.failed("Unable to stage artifacts: " + e.getMessage());
+            return status;
+        }
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            asyncDeployExecutor.execute(withContextClassLoader(classLoader,
+                                                               () -> deployStaged(status,
+                                                                                  gav,
+                                                                                  repositories,
+                                                                                  pom,
+                                                                                  stagingDir,
+                                                                                  stagedArtifacts)));
+            log.info("Deploying {} to {} in the background as deployment {}",
+                     gav,
+                     names,
+                     status.getId());
+        } catch (RejectedExecutionException e) {
+            FileUtils.deleteQuietly(stagingDir.toFile());
+            log.error("Unable to deploy {} to {}: too many deployments in progress",
+                      gav,
+                      names);
+            status.failed("Too many deployments in progress");
+        }
+        return status;
+    }
+
+    private void deployStaged(final DeploymentStatus status,
+                              final GAV gav,
+                              final List<ArtifactRepository> repositories,
+                              final String pom,
+                              final Path stagingDir,
+                              final Artifact... stagedArtifacts) {
+        status.running();
+        try {
+            final List<DeploymentUnit> units = Collections.singletonList(new DeploymentUnit(gav,
+                                                                                            pom,
+                                                                                            stagedArtifacts));
+            deployEach(gav.toString(),
+                       repositories.stream().collect(Collectors.toMap(Function.identity(),
+                                                                      repository -> units,
+                                                                      (a, b) -> a,
+                                                                      LinkedHashMap::new)));
+            status.succeeded("Deployed to " + repositories.stream().map(ArtifactRepository::getName).collect(Collectors.joining(", ")));
+        } catch (RepositoryDeploymentException e) {
+            log.error(e.getMessage(),
+                      e);
+            status.failed(e);
+        } finally {
+            FileUtils.deleteQuietly(stagingDir.toFile());
+        }
+    }
+
+    /**
+     * Deploys units with a single request, unless the repository is a distribution management one, as the POM
+     * of every unit may name another one.
+     */
+    private static void deployUnits(final ArtifactRepository repository,
+                                    final List<DeploymentUnit> units) {
+        if (units.size() == 1) {
+            repository.deploy(units.get(0).getPom(),
+                              units.get(0).getArtifacts());
+        } else if (repository instanceof DistributionManagementArtifactRepository) {
+            units.forEach(unit -> repository.deploy(unit.getPom(),
+                                                    unit.getArtifacts()));
+        } else {
+            repository.deploy(null,
+                              units.stream()
+                                      .flatMap(unit -> Arrays.stream(unit.getArtifacts()))
+                                      .toArray(Artifact[]::new));
+        }
+    }
+
+    private boolean isDeployedInBackground(final ArtifactRepository repository) {
+        return repositoryProperties.isAsyncDistributionManagementDeploy()
+                && repository instanceof DistributionManagementArtifactRepository;
+    }
+
+    private long getTimeout(final String repositoryName) {
+        final Long timeout = repositoryProperties.getDeployTimeouts().get(repositoryName);
+        return timeout != null ? timeout : repositoryProperties.getDeployTimeout();
+    }
+
+    /**
+     * The deployment to a single repository. Its timeout is measured from the moment it is submitted, so the
+     * time it waits for a deployment thread counts. Once cancelled it either never runs or is interrupted. It
+     * removes its staging dir once it stopped, or was cancelled before it ran.
+     */
+    private static class DeployTask implements Runnable {
+
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final String name;
+        private final Path stagingDir;
+        private final Runnable deployment;
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private final long submitNanos = System.nanoTime();
+        private Future<?> future;
+
+        private DeployTask(final String name,
+                           final Path stagingDir,
+                           final Runnable deployment) {
+            this.name = name;
+            this.stagingDir = stagingDir;
+            this.deployment = deployment;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(NEW,
+                                     RUNNING)) {
+                return;
+            }
+            try {
+                deployment.run();
+            } finally {
+                FileUtils.deleteQuietly(stagingDir.toFile());
+                stopped.countDown();
+            }
+        }
+
+        /**
+         * Waits for the deployment to complete until the timeout since it was submitted expired.
+         */
+        private void get(final long timeout) throws InterruptedException, ExecutionException, TimeoutException {
+            final long remaining = timeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - submitNanos);
+            future.get(Math.max(0,
+                                remaining),
+                       TimeUnit.MILLISECONDS);
+        }
+
+        private void cancel() {
+            // A deployment which didn't start yet never will, a running one is interrupted
+            if (state.compareAndSet(NEW,
+                                    CANCELLED)) {
+                FileUtils.deleteQuietly(stagingDir.toFile());
+            } else {
+                future.cancel(true);
+            }
+        }
+
+        /**
+         * Waits until the deployment completed, unless it never started, or the deadline passed. Interrupts
+         * don't end the wait, the caller releases the locks the deployment relies on once this returns.
+         */
+        private void awaitStopped(final long deadlineNanos) {
+            if (state.get() == CANCELLED) {
+                return;
+            }
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        if (stopped.await(deadlineNanos - System.nanoTime(),
+                                          TimeUnit.NANOSECONDS)) {
+                            return;
+                        }
+                        log.warn("Abandoning the cancelled deployment of {}, it didn't stop within {} ms",
+                                 name,
+                                 STOP_TIMEOUT);
+                        return;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stages the artifact files of every unit into a dir of its own within the staging dir.
+     *
+     * @return the units with the staged artifacts
+     */
+    private static List<DeploymentUnit> stage(final Path stagingDir,
+                                              final List<DeploymentUnit> units) throws IOException {
+        final List<DeploymentUnit> staged = new ArrayList<>(units.size());
+        for (int u = 0; u < units.size(); u++) {
+            final DeploymentUnit unit = units.get(u);
+            staged.add(new DeploymentUnit(unit.getGav(),
+                                          unit.getPom(),
+                                          stage(Files.createDirectory(stagingDir.resolve(String.valueOf(u))),
+                                                unit.getArtifacts())));
+        }
+        return staged;
+    }
+
+    /**
+     * Links, or if that is not possible copies, the artifact files into the staging dir.
+     */
+    private static Artifact[] stage(final Path stagingDir,
+                                    final Artifact... artifacts) throws IOException {
+        final Artifact[] staged = new Artifact[artifacts.length];
+        for (int i = 0; i < artifacts.length; i++) {
+            final File file = artifacts[i].getFile();
+            if (file == null) {
+                staged[i] = artifacts[i];
+                continue;
+            }
+            final Path target = stagingDir.resolve(i + "-" + file.getName());
+            try {
+                Files.createLink(target,
+                                 file.toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(file.toPath(),
+                           target);
+            }
+            staged[i] = artifacts[i].setFile(target.toFile());
+        }
+        return staged;
+    }
+}
@@ -0,0 +1,54 @@
+package com.qchery.kbench.backend.deploy;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thrown once all repositories of a deployment are done, if the deployment failed for any of them.
+ * The individual errors are attached as suppressed exceptions.
+ *
+ * @author Chery
+ * @date 2026/10/18 15:35
+ */
+public class RepositoryDeploymentException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, String> failures;
+
+    public RepositoryDeploymentException(final String gav,
+                                         final Map<String, Throwable> failures) {
+        super(message(gav,
+                      failures));
+        final Map<String, String> messages = new LinkedHashMap<>();
+        failures.forEach((repository, cause) -> {
+            messages.put(repository,
+                         String.valueOf(cause.getMessage()));
+            addSuppressed(cause);
+        });
+        this.failures = Collections.unmodifiableMap(messages);
+    }
+
+    /**
+     * @return the error message of every failed repository, by repository name
+     */
+    public Map<String, String> getFailures() {
+        return failures;
+    }
+
+    private static String message(final String gav,
+                                  final Map<String, Throwable> failures) {
+        final StringBuilder sb = new StringBuilder("Deployment of ")
+                .append(gav)
+                .append(" failed for ")
+                .append(failures.size())
+                .append(failures.size() == 1 ? " repository:" : " repositories:");
+        failures.forEach((repository, cause) -> sb.append(' ')
+                .append(repository)
+                .append(" (")
+                .append(cause.getMessage())
+                .append(')'));
+        return sb.toString();
+    }
+}
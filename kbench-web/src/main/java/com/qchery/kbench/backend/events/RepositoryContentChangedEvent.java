@@ -0,0 +1,42 @@
+package com.qchery.kbench.backend.events;
+
+import org.springframework.context.ApplicationEvent;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published after files of a repository were written or removed, so everything caching repository
+ * content can drop what it holds for them. A directory stands for everything below it.
+ *
+ * @author Chery
+ * @date 2026/10/18 14:20
+ */
+public class RepositoryContentChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String repositoryName;
+    private final List<File> files;
+
+    public RepositoryContentChangedEvent(final Object source,
+                                         final String repositoryName,
+                                         final File... files) {
+        super(source);
+        this.repositoryName = repositoryName;
+        this.files = Collections.unmodifiableList(Arrays.asList(files));
+    }
+
+    /**
+     * @return the changed repository or null if the files belong to several repositories
+     */
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+}
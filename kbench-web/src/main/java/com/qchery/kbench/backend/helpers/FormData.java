@@ -17,11 +17,19 @@
 package com.qchery.kbench.backend.helpers;
 
 import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.io.FileUtils;
 import org.guvnor.common.services.project.model.GAV;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
 public class FormData {
 
     private FileItem file;
+    private File uploadedFile;
+    private String fileName;
     private GAV gav;
 
     public FileItem getFile() {
@@ -30,9 +38,44 @@ public class FormData {
 
     public void setFile(FileItem file) {
         this.file = file;
+        this.fileName = file.getName();
+    }
+
+    /**
+     * @return the file a streamed upload was written to, or null if the upload is held by a {@link FileItem}
+     */
+    public File getUploadedFile() {
+        return uploadedFile;
+    }
+
+    public void setUploadedFile(File uploadedFile,
+                                String fileName) {
+        this.uploadedFile = uploadedFile;
+        this.fileName = fileName;
+    }
+
+    public boolean hasFile() {
+        return file != null || uploadedFile != null;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Opens a new stream over the uploaded content, which can be done more than once.
+     */
+    public InputStream openStream() throws IOException {
+        return uploadedFile != null ? new FileInputStream(uploadedFile) : file.getInputStream();
     }
 
     public void closeFile() {
+        if (file != null) {
+            file.delete();
+        }
+        if (uploadedFile != null) {
+            FileUtils.deleteQuietly(uploadedFile);
+        }
     }
 
     public GAV getGav() {
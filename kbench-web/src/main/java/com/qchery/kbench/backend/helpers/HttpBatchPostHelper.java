@@ -0,0 +1,245 @@
+package com.qchery.kbench.backend.helpers;
+
+import com.qchery.kbench.backend.ExtendedM2RepoService;
+import com.qchery.kbench.backend.deploy.RepositoryDeployer;
+import com.qchery.kbench.backend.deploy.RepositoryDeploymentException;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.guvnor.m2repo.utils.FileNameUtilities.*;
+
+/**
+ * Deploys many JARs and POMs with one request, ie., all artifacts of a release. The request is either a
+ * multipart form with a file part per artifact, or a ZIP bundle of artifacts, sent as the request body or as
+ * a part of the form. The GAVs of all artifacts are resolved concurrently and the artifacts are then deployed
+ * with a single deploy request per repository.
+ * <p>
+ * Responds with the deployed GAVs, one per line.
+ *
+ * @author Chery
+ * @date 2026/10/18 19:30
+ */
+@Component
+public class HttpBatchPostHelper {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpBatchPostHelper.class);
+
+    private static final String ZIP_EXTENSION = ".zip";
+
+    @Autowired
+    private ExtendedM2RepoService m2RepoService;
+
+    @Autowired
+    private RepositoryDeployer repositoryDeployer;
+
+    public void handle(final HttpServletRequest request,
+                       final HttpServletResponse response) throws IOException {
+        final List<Upload> uploads = new ArrayList<>();
+        try {
+            try {
+                if (ServletFileUpload.isMultipartContent(request)) {
+                    readMultipart(request,
+                                  uploads);
+                } else if (isZipContent(request.getContentType())) {
+                    readBundle(request.getInputStream(),
+                               uploads);
+                } else {
+                    response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                                       "Expected a multipart form or a ZIP bundle");
+                    return;
+                }
+            } catch (FileUploadException | UnsupportedUploadException e) {
+                log.warn("Unable to read batch upload: {}",
+                         e.getMessage());
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                                   e.getMessage());
+                return;
+            }
+            if (uploads.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                                   "No file selected.");
+                return;
+            }
+
+            final List<GAV> gavs = repositoryDeployer.mapEach(uploads,
+                                                              HttpBatchPostHelper::resolveGAV);
+            final List<String> unresolved = new ArrayList<>();
+            final Map<File, GAV> jars = new LinkedHashMap<>();
+            final Map<File, GAV> poms = new LinkedHashMap<>();
+            for (int i = 0; i < uploads.size(); i++) {
+                final Upload upload = uploads.get(i);
+                final GAV gav = gavs.get(i);
+                if (gav == null) {
+                    unresolved.add(upload.name);
+                } else if (upload.isPomFile()) {
+                    poms.put(upload.file,
+                             gav);
+                } else {
+                    jars.put(upload.file,
+                             gav);
+                }
+            }
+            if (!unresolved.isEmpty()) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                                   "Unable to resolve the GAV of " + String.join(", ",
+                                                                                 unresolved));
+                return;
+            }
+
+            try {
+                m2RepoService.deployBatch(jars,
+                                          poms);
+            } catch (RepositoryDeploymentException e) {
+                log.error(e.getMessage(),
+                          e);
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                   e.getMessage());
+                return;
+            }
+
+            log.info("Deployed {} artifacts in one batch",
+                     uploads.size());
+            response.setContentType("text/plain");
+            response.getWriter().write(gavs.stream().map(GAV::toString).collect(Collectors.joining("\n")));
+        } finally {
+            uploads.forEach(upload -> FileUtils.deleteQuietly(upload.file));
+        }
+    }
+
+    private void readMultipart(final HttpServletRequest request,
+                               final List<Upload> uploads) throws FileUploadException, IOException {
+        final ServletFileUpload upload = new ServletFileUpload();
+        upload.setHeaderEncoding("UTF-8");
+
+        final FileItemIterator items = upload.getItemIterator(request);
+        while (items.hasNext()) {
+            final FileItemStream item = items.next();
+            if (item.isFormField() || isNullOrEmpty(item.getName())) {
+                continue;
+            }
+            try (InputStream is = item.openStream()) {
+                if (item.getName().toLowerCase().endsWith(ZIP_EXTENSION)) {
+                    readBundle(is,
+                               uploads);
+                } else {
+                    uploads.add(Upload.of(item.getName(),
+                                          is));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the JARs and POMs of a ZIP bundle. Other entries, ie., checksums or signatures, are skipped.
+     */
+    private static void readBundle(final InputStream bundle,
+                                   final List<Upload> uploads) throws IOException {
+        final ZipInputStream zis = new ZipInputStream(bundle);
+        ZipEntry entry;
+        while ((entry = zis.getNextEntry()) != null) {
+            final String name = FilenameUtils.getName(entry.getName());
+            if (!entry.isDirectory() && isSupported(name)) {
+                uploads.add(Upload.of(name,
+                                      zis));
+            }
+        }
+    }
+
+    private static GAV resolveGAV(final Upload upload) {
+        if (!upload.isPomFile()) {
+            return PomModelResolver.resolveGAVFromJar(upload.file);
+        }
+        try (InputStream is = new FileInputStream(upload.file)) {
+            return PomModelResolver.toGAV(PomModelResolver.resolveFromPom(is));
+        } catch (Exception e) {
+            log.error("Could not parse the uploaded POM file " + upload.name,
+                      e);
+            return null;
+        }
+    }
+
+    private static boolean isZipContent(final String contentType) {
+        return contentType != null
+                && (contentType.startsWith("application/zip") || contentType.startsWith("application/x-zip-compressed"));
+    }
+
+    private static boolean isSupported(final String name) {
+        return isJar(name) || isKJar(name) || isPom(name) || isDeployedPom(name);
+    }
+
+    private static boolean isNullOrEmpty(final String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * An artifact of the batch, written to a temporary file as it is read.
+     */
+    private static class Upload {
+
+        private final String name;
+        private final File file;
+
+        private Upload(final String name,
+                       final File file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        private static Upload of(final String name,
+                                 final InputStream is) throws IOException {
+            if (!isSupported(name)) {
+                throw new UnsupportedUploadException("Unsupported file type selected: " + name);
+            }
+            final File file = File.createTempFile("kbench-upload-",
+                                                  ".tmp");
+            try {
+                Files.copy(is,
+                           file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                FileUtils.deleteQuietly(file);
+                throw e;
+            }
+            return new Upload(name,
+                              file);
+        }
+
+        private boolean isPomFile() {
+            return isPom(name) || isDeployedPom(name);
+        }
+    }
+
+    private static class UnsupportedUploadException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        private UnsupportedUploadException(final String message) {
+            super(message);
+        }
+    }
+}
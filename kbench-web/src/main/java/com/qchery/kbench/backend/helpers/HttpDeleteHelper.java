@@ -0,0 +1,85 @@
+package com.qchery.kbench.backend.helpers;
+
+import com.qchery.kbench.backend.GuvnorM2Repository;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Deletes artifacts. The path names the artifact directory, ie., "/org/kie/example" for org.kie:example, and
+ * the optional "version" parameter is a wildcard of the versions to delete, ie., "1.0.*". Without it every
+ * version of the artifact is deleted.
+ * <p>
+ * Responds with the deleted GAVs, one per line, or 404 if nothing matched.
+ *
+ * @author Chery
+ * @date 2026/10/18 19:50
+ */
+@Component
+public class HttpDeleteHelper {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpDeleteHelper.class);
+
+    @Autowired
+    private GuvnorM2Repository m2RepoService;
+
+    public void handle(final HttpServletRequest request,
+                       final HttpServletResponse response) throws IOException {
+        final String pathInfo = request.getPathInfo();
+        if (pathInfo == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        //The container decoded the path info already. Only plain group and artifact path segments are
+        //accepted, which also rules out file traversal
+        final String path = pathInfo.replaceAll("^/+|/+$",
+                                                "");
+        final int index = path.lastIndexOf('/');
+        if (index <= 0 || path.contains("..") || path.contains("\\") || path.contains("//")) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                               "Expected the path of an artifact, ie., /org/kie/example");
+            return;
+        }
+        final String groupId = path.substring(0,
+                                              index).replace('/',
+                                                             '.');
+        final String artifactId = path.substring(index + 1);
+        final String version = request.getParameter("version");
+        if (version != null && (version.isEmpty() || version.contains("/") || version.contains(File.separator))) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                               "Invalid version " + version);
+            return;
+        }
+
+        final List<GAV> deleted;
+        try {
+            deleted = m2RepoService.deleteArtifacts(groupId,
+                                                    artifactId,
+                                                    version);
+        } catch (RuntimeException e) {
+            log.error(e.getMessage(),
+                      e);
+            //The message may hold repository paths, which aren't for clients
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                               "Unable to delete the artifact");
+            return;
+        }
+        if (deleted.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        response.setContentType("text/plain");
+        response.getWriter().write(deleted.stream().map(GAV::toString).distinct().collect(Collectors.joining("\n")));
+    }
+}
@@ -17,6 +17,8 @@
 package com.qchery.kbench.backend.helpers;
 
 import com.qchery.kbench.backend.GuvnorM2Repository;
+import com.qchery.kbench.backend.cache.CompressedContentCache;
+import com.qchery.kbench.backend.cache.HotFileCache;
 import org.guvnor.m2repo.service.M2RepoService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -32,15 +34,28 @@ import java.io.RandomAccessFile;
 import java.net.URLDecoder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.zip.GZIPOutputStream;
 
+import static com.qchery.kbench.backend.repositories.ArtifactRepositoryService.GLOBAL_M2_REPO_NAME;
+
 @Component
 public class HttpGetHelper {
 
     private static final int DEFAULT_BUFFER_SIZE = 10240;
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
     private static final long DEFAULT_EXPIRE_TIME = 604800000L; //1 week.
     private static final String MULTIPART_BOUNDARY = "MULTIPART_BYTERANGES";
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+    private static final int MAX_RANGES = 64;
+    private static final long COALESCE_GAP = 80;
+    private static final String GZIP_ETAG_SUFFIX = "-gz";
+    private static final String[] COMPRESSIBLE_EXTENSIONS = {".pom", ".xml", ".sha1", ".md5", ".sha256", ".sha512"};
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
 
     @Autowired
     private M2RepoService m2RepoService;
@@ -48,6 +63,12 @@ public class HttpGetHelper {
     @Autowired
     private GuvnorM2Repository repository;
 
+    @Autowired
+    private CompressedContentCache compressedContentCache;
+
+    @Autowired
+    private HotFileCache hotFileCache;
+
     public void handle(final HttpServletRequest request,
                        final HttpServletResponse response) throws IOException {
 
@@ -60,38 +81,63 @@ public class HttpGetHelper {
             return;
         }
 
-        requestedFile = URLDecoder.decode(requestedFile, "UTF-8");
+        final String requestedPath = URLDecoder.decode(requestedFile, "UTF-8");
 
         String repositoryName = request.getParameter("repository");
-
-        //File traversal check:
-        final File mavenRootDir = new File(repository.getM2RepositoryRootDir(repositoryName));
-        final String canonicalDirPath = mavenRootDir.getCanonicalPath() + File.separator;
-        final String canonicalEntryPath = new File(mavenRootDir, requestedFile).getCanonicalPath();
-        if (!canonicalEntryPath.startsWith(canonicalDirPath)) {
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
-            return;
+        if (repositoryName == null || repositoryName.isEmpty()) {
+            repositoryName = GLOBAL_M2_REPO_NAME;
         }
 
-        requestedFile = canonicalEntryPath.substring(canonicalDirPath.length());
-        final File file = new File(mavenRootDir, requestedFile);
+        final long generation = hotFileCache.getGeneration();
+        HotFileCache.CachedFile cached = hotFileCache.get(repositoryName, requestedPath);
 
-        if (!file.exists()) {
-            response.sendError(HttpServletResponse.SC_NOT_FOUND);
-            return;
-        }
+        File file = null;
+        String fileName;
+        long length;
+        long lastModified;
+        String eTag;
+
+        if (cached != null) {
+            // Only paths which passed the checks below are ever cached
+            fileName = cached.getName();
+            length = cached.getLength();
+            lastModified = cached.getLastModified();
+            eTag = cached.getETag();
+        } else {
+            //File traversal check:
+            final File mavenRootDir = new File(repository.getM2RepositoryRootDir(repositoryName));
+            final String canonicalDirPath = mavenRootDir.getCanonicalPath() + File.separator;
+            final String canonicalEntryPath = new File(mavenRootDir, requestedPath).getCanonicalPath();
+            if (!canonicalEntryPath.startsWith(canonicalDirPath)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            requestedFile = canonicalEntryPath.substring(canonicalDirPath.length());
+            file = new File(mavenRootDir, requestedFile);
 
-        // Process the ETag
-        String fileName = file.getName();
-        long length = file.length();
-        long lastModified = file.lastModified();
-        String eTag = fileName + "_" + length + "_" + lastModified;
+            if (!file.exists()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            // Process the ETag
+            fileName = file.getName();
+            length = file.length();
+            lastModified = file.lastModified();
+            eTag = fileName + "_" + length + "_" + lastModified;
+        }
 
         String ifNoneMatch = request.getHeader("If-None-Match");
-        if (ifNoneMatch != null && matches(ifNoneMatch, eTag)) {
-            response.setHeader("ETag", eTag); // Required in 304.
-            response.sendError(HttpServletResponse.SC_NOT_MODIFIED);
-            return;
+        if (ifNoneMatch != null) {
+            // The gzip encoded variant has an ETag of its own
+            final String matched = matches(ifNoneMatch, eTag) ? eTag
+                    : matches(ifNoneMatch, eTag + GZIP_ETAG_SUFFIX) ? eTag + GZIP_ETAG_SUFFIX : null;
+            if (matched != null) {
+                response.setHeader("ETag", matched); // Required in 304.
+                response.sendError(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
         }
 
         long ifModifiedSince = request.getDateHeader("If-Modified-Since");
@@ -116,6 +162,20 @@ public class HttpGetHelper {
         Range full = new Range(0, length - 1, length);
         List<Range> ranges = new ArrayList<>();
 
+        // Process the Range, unless If-Range says the client's copy is outdated
+        String range = request.getHeader("Range");
+        if (range != null && isIfRangeSatisfied(request, eTag, lastModified)) {
+            ranges = parseRanges(range, length);
+            if (ranges == null) {
+                response.setHeader("Content-Range", "bytes */" + length); // Required in 416.
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (ranges.size() == 1 && ranges.get(0).length == length) {
+                ranges.set(0, full);
+            }
+        }
+
         String contentType = context.getMimeType(fileName);
         boolean acceptsGzip = false;
         String disposition = "inline";
@@ -124,44 +184,89 @@ public class HttpGetHelper {
             contentType = "application/octet-stream";
         }
 
-        if (contentType.startsWith("text")) {
+        final boolean compressible = isCompressible(fileName, contentType);
+        if (compressible) {
             String acceptEncoding = request.getHeader("Accept-Encoding");
             acceptsGzip = acceptEncoding != null && accepts(acceptEncoding, "gzip");
+        }
+
+        if (contentType.startsWith("text")) {
             contentType += ";charset=UTF-8";
         } else if (!contentType.startsWith("image")) {
             String accept = request.getHeader("Accept");
             disposition = accept != null && accepts(accept, contentType) ? "inline" : "attachment";
         }
 
+        if (cached == null) {
+            cached = hotFileCache.load(repositoryName, requestedPath, file, length, lastModified, eTag,
+                                       compressible, generation);
+        }
+
+        // Only full content is encoded, cached content only if it was compressed when loaded
+        final boolean gzip = acceptsGzip
+                && (ranges.isEmpty() || ranges.get(0) == full)
+                && (cached == null || cached.getCompressed() != null);
+
         //Response.
         response.reset();
         response.setBufferSize(DEFAULT_BUFFER_SIZE);
         response.setHeader("Content-Disposition", disposition + ";filename=\"" + fileName + "\"");
         response.setHeader("Accept-Ranges", "bytes");
-        response.setHeader("ETag", eTag);
+        response.setHeader("ETag", gzip ? eTag + GZIP_ETAG_SUFFIX : eTag);
         response.setDateHeader("Last-Modified", lastModified);
         response.setDateHeader("Expires", System.currentTimeMillis() + DEFAULT_EXPIRE_TIME);
+        if (compressible) {
+            response.setHeader("Vary", "Accept-Encoding");
+        }
 
         RandomAccessFile input = null;
         OutputStream output = null;
 
         try {
-            input = new RandomAccessFile(file, "r");
-            output = response.getOutputStream();
+            if (cached == null) {
+                input = new RandomAccessFile(file, "r");
+            }
 
             if (ranges.isEmpty() || ranges.get(0) == full) {
                 Range r = full;
                 response.setContentType(contentType);
-                response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
-
-                if (acceptsGzip) {
+                if (gzip) {
+                    // The range would be the one of the identity content, so there's none
                     response.setHeader("Content-Encoding", "gzip");
-                    output = new GZIPOutputStream(output, DEFAULT_BUFFER_SIZE);
                 } else {
-                    response.setHeader("Content-Length", String.valueOf(r.length));
+                    response.setHeader("Content-Range", "bytes " + r.start + "-" + r.end + "/" + r.total);
                 }
 
-                copyRange(input, output, r.start, r.length);
+                if (cached != null) {
+                    final byte[] content = gzip ? cached.getCompressed() : cached.getContent();
+                    response.setHeader("Content-Length", String.valueOf(content.length));
+                    output = response.getOutputStream();
+                    output.write(content);
+                } else if (gzip) {
+                    final File compressed = compressedContentCache.get(repositoryName, requestedFile, file,
+                                                                       length, lastModified);
+                    if (compressed != null) {
+                        final long compressedLength = compressed.length();
+                        final Range c = new Range(0, compressedLength - 1, compressedLength);
+                        response.setHeader("Content-Length", String.valueOf(compressedLength));
+                        if (!sendFile(request, compressed, c)) {
+                            try (RandomAccessFile compressedInput = new RandomAccessFile(compressed, "r")) {
+                                output = response.getOutputStream();
+                                copyRange(compressedInput, output, c.start, c.length);
+                            }
+                        }
+                    } else {
+                        // Compressed while it is written, there is no cached variant to send
+                        output = new GZIPOutputStream(response.getOutputStream(), DEFAULT_BUFFER_SIZE);
+                        copyRange(input, output, r.start, r.length);
+                    }
+                } else {
+                    response.setHeader("Content-Length", String.valueOf(r.length));
+                    if (!sendFile(request, file, r)) {
+                        output = response.getOutputStream();
+                        copyRange(input, output, r.start, r.length);
+                    }
+                }
             } else if (ranges.size() == 1) {
                 Range r = ranges.get(0);
                 response.setContentType(contentType);
@@ -169,19 +274,31 @@ public class HttpGetHelper {
                 response.setHeader("Content-Length", String.valueOf(r.length));
                 response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT); // 206.
 
-                copyRange(input, output, r.start, r.length);
+                if (cached != null) {
+                    output = response.getOutputStream();
+                    output.write(cached.getContent(), (int) r.start, (int) r.length);
+                } else if (!sendFile(request, file, r)) {
+                    output = response.getOutputStream();
+                    copyRange(input, output, r.start, r.length);
+                }
             } else {
                 response.setContentType("multipart/byteranges; boundary=" + MULTIPART_BOUNDARY);
                 response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT); // 206.
 
+                output = response.getOutputStream();
                 ServletOutputStream sos = (ServletOutputStream) output;
                 for (Range r : ranges) {
                     sos.println();
                     sos.println("--" + MULTIPART_BOUNDARY);
                     sos.println("Content-Type: " + contentType);
                     sos.println("Content-Range: bytes " + r.start + "-" + r.end + "/" + r.total);
+                    sos.println();
 
-                    copyRange(input, output, r.start, r.length);
+                    if (cached != null) {
+                        output.write(cached.getContent(), (int) r.start, (int) r.length);
+                    } else {
+                        copyRange(input, output, r.start, r.length);
+                    }
                 }
 
                 sos.println();
@@ -197,6 +314,172 @@ public class HttpGetHelper {
         }
     }
 
+    /**
+     * Hands the range over to the container's sendfile support, so the file is written to the socket
+     * by the kernel without being copied through the JVM. Only Tomcat's NIO/NIO2/APR connectors support
+     * this and only for uncompressed responses. Small files are not worth the extra poller round trip.
+     *
+     * @return true if the container will send the range, false if it has to be written by the caller
+     */
+    private static boolean sendFile(final HttpServletRequest request,
+                                    final File file,
+                                    final Range range) throws IOException {
+        if (range.length < SENDFILE_THRESHOLD
+                || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+            return false;
+        }
+        request.setAttribute(SENDFILE_FILENAME_ATTR, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START_ATTR, range.start);
+        request.setAttribute(SENDFILE_END_ATTR, range.end + 1);
+        return true;
+    }
+
+    /**
+     * A Range is only honored if the If-Range validator, when given, still matches the file. A strong
+     * ETag must be equal, a date must be the exact last modified time (RFC 7233, section 3.2).
+     */
+    private static boolean isIfRangeSatisfied(final HttpServletRequest request,
+                                              final String eTag,
+                                              final long lastModified) {
+        final String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        final String validator = ifRange.trim();
+        if (validator.startsWith("W/")) {
+            // Weak validators never match
+            return false;
+        }
+        if (validator.startsWith("\"")) {
+            return validator.equals("\"" + eTag + "\"");
+        }
+        if (validator.equals(eTag)) {
+            return true;
+        }
+        try {
+            final long ifRangeTime = request.getDateHeader("If-Range");
+            return ifRangeTime != -1 && ifRangeTime / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parses a Range header as defined by RFC 7233, section 2.1, ie., "bytes=0-499", "bytes=500-",
+     * "bytes=-500" or a comma separated list of those. Last positions beyond the end of the file are
+     * truncated, unsatisfiable ranges are dropped and overlapping or nearly adjacent ranges are coalesced.
+     *
+     * @return the ranges to send, sorted by position; an empty list if the header has to be ignored
+     * because it is malformed, uses another unit or asks for too many ranges; null if no range can be
+     * satisfied
+     */
+    private List<Range> parseRanges(final String header,
+                                    final long length) {
+        final int equals = header.indexOf('=');
+        if (equals < 0 || !header.substring(0, equals).trim().equalsIgnoreCase("bytes")) {
+            return new ArrayList<>();
+        }
+
+        final List<Range> ranges = new ArrayList<>();
+        for (String spec : header.substring(equals + 1).split(",")) {
+            spec = spec.trim();
+            if (spec.isEmpty()) {
+                // Empty list elements are allowed
+                continue;
+            }
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return new ArrayList<>();
+            }
+            final long first;
+            final long last;
+            try {
+                first = parsePosition(spec.substring(0, dash).trim());
+                last = parsePosition(spec.substring(dash + 1).trim());
+            } catch (NumberFormatException e) {
+                return new ArrayList<>();
+            }
+
+            if (first == -1 && last == -1) {
+                return new ArrayList<>();
+            } else if (first == -1) {
+                // Suffix range, the last n bytes
+                if (last > 0 && length > 0) {
+                    ranges.add(new Range(Math.max(0, length - last), length - 1, length));
+                }
+            } else if (last != -1 && last < first) {
+                return new ArrayList<>();
+            } else if (first < length) {
+                ranges.add(new Range(first, last == -1 ? length - 1 : Math.min(last, length - 1), length));
+            }
+        }
+
+        if (ranges.isEmpty()) {
+            return null;
+        }
+
+        final List<Range> coalesced = coalesce(ranges, length);
+        if (coalesced.size() > MAX_RANGES) {
+            return new ArrayList<>();
+        }
+        return coalesced;
+    }
+
+    private List<Range> coalesce(final List<Range> ranges,
+                                 final long length) {
+        ranges.sort(Comparator.comparingLong(r -> r.start));
+
+        final List<Range> coalesced = new ArrayList<>();
+        Range current = ranges.get(0);
+        for (Range next : ranges.subList(1, ranges.size())) {
+            // Sending a small gap is cheaper than the part headers of another range
+            if (next.start <= current.end + 1 + COALESCE_GAP) {
+                if (next.end > current.end) {
+                    current = new Range(current.start, next.end, length);
+                }
+            } else {
+                coalesced.add(current);
+                current = next;
+            }
+        }
+        coalesced.add(current);
+        return coalesced;
+    }
+
+    /**
+     * @return the position or -1 if none is given
+     */
+    private static long parsePosition(final String position) {
+        if (position.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < position.length(); i++) {
+            final char c = position.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(position);
+            }
+        }
+        return Long.parseLong(position);
+    }
+
+    /**
+     * Text files, XML files (maven-metadata.xml), POMs and checksums are worth compressing,
+     * archives are already compressed.
+     */
+    private static boolean isCompressible(final String fileName,
+                                          final String contentType) {
+        if (contentType.startsWith("text") || contentType.startsWith("application/xml")) {
+            return true;
+        }
+        final String name = fileName.toLowerCase();
+        for (String extension : COMPRESSIBLE_EXTENSIONS) {
+            if (name.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static boolean accepts(final String acceptHeader,
                                    final String toAccept) {
         String[] acceptValues = acceptHeader.split("\\s*(,|;)\\s*");
@@ -220,37 +503,33 @@ public class HttpGetHelper {
                 "*") > -1;
     }
 
+    /**
+     * Writes a range of the file through one heap buffer, for the responses the container doesn't send itself.
+     * The Servlet API doesn't expose the socket channel, and a FileChannel transferring into the response
+     * stream copies every chunk twice, into a direct buffer and into the stream adapter's array.
+     */
     private static void copyRange(final RandomAccessFile input,
                                   final OutputStream output,
                                   final long start,
                                   final long length) throws IOException {
-        byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
-        int read;
-
-        if (input.length() == length) {
-            // Write full range.
-            while ((read = input.read(buffer)) > 0) {
-                output.write(buffer,
-                        0,
-                        read);
-            }
-        } else {
-            // Write partial range.
-            input.seek(start);
-            long toRead = length;
-
-            while ((read = input.read(buffer)) > 0) {
-                if ((toRead -= read) > 0) {
-                    output.write(buffer,
-                            0,
-                            read);
-                } else {
-                    output.write(buffer,
-                            0,
-                            (int) toRead + read);
-                    break;
-                }
+        final byte[] buffer = new byte[(int) Math.min(COPY_BUFFER_SIZE,
+                                                      Math.max(length,
+                                                               1))];
+        input.seek(start);
+        long remaining = length;
+        while (remaining > 0) {
+            final int read = input.read(buffer,
+                                        0,
+                                        (int) Math.min(buffer.length,
+                                                       remaining));
+            if (read < 0) {
+                // The file was truncated while being served
+                break;
             }
+            output.write(buffer,
+                         0,
+                         read);
+            remaining -= read;
         }
     }
 
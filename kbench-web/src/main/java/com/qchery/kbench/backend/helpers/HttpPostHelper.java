@@ -17,11 +17,20 @@
 package com.qchery.kbench.backend.helpers;
 
 import com.qchery.kbench.backend.ExtendedM2RepoService;
+import com.qchery.kbench.backend.deploy.DeploymentQueue;
+import com.qchery.kbench.backend.deploy.DeploymentRegistry;
+import com.qchery.kbench.backend.deploy.DeploymentStatus;
+import com.qchery.kbench.backend.deploy.RepositoryDeploymentException;
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileItemFactory;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
+import org.apache.commons.io.FileUtils;
 import org.appformer.maven.support.PomModel;
 import org.guvnor.common.services.backend.exceptions.ExceptionUtilities;
 import org.guvnor.common.services.project.model.GAV;
@@ -34,8 +43,11 @@ import org.springframework.stereotype.Service;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 import static org.guvnor.m2repo.model.HTMLFileManagerFields.*;
@@ -46,23 +58,204 @@ public class HttpPostHelper {
 
     private static final Logger log = LoggerFactory.getLogger(HttpPostHelper.class);
 
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    private static final String RETRY_AFTER_SECONDS = "5";
+    private static final String RESPOND_ASYNC = "respond-async";
+
     @Autowired
     private ExtendedM2RepoService m2RepoService;
 
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    @Autowired
+    private DeploymentQueue deploymentQueue;
+
+    @Autowired
+    private DeploymentRegistry deploymentRegistry;
+
     /**
      * Posting accepts content of various types -
      * may be an attachment for an asset, or perhaps a repository import to process.
      */
     public void handle(final HttpServletRequest request,
                        final HttpServletResponse response) throws IOException {
+        if (isAsync(request)) {
+            handleAsync(request,
+                        response);
+            return;
+        }
         response.setContentType("text/html");
         final FormData formData = extractFormData(request);
-        final String result = upload(formData);
-        response.getWriter().write(result);
+        try {
+            final String result = upload(formData);
+            response.getWriter().write(result);
+        } finally {
+            if (formData != null) {
+                formData.closeFile();
+            }
+        }
+    }
+
+    /**
+     * Reads the upload in and leaves resolving and deploying it to the deployment queue. Responds with
+     * 202 and the location of the deployment status, or with 429 if the queue is full.
+     */
+    private void handleAsync(final HttpServletRequest request,
+                             final HttpServletResponse response) throws IOException {
+        if (deploymentQueue.isFull()) {
+            rejectUpload(response);
+            return;
+        }
+
+        final FormData formData = extractFormData(request);
+        if (formData == null) {
+            throw new IOException("Unable to read the upload.");
+        }
+        // Once queued the deployment closes the file, until then it is closed here whatever goes wrong
+        boolean queued = false;
+        try {
+            validate(formData);
+
+            final DeploymentStatus status = deploymentRegistry.register(formData.getGav() == null ? null : formData.getGav().toString());
+            queued = deploymentQueue.submit(() -> deployUpload(formData,
+                                                               status));
+            if (!queued) {
+                status.failed("Too many deployments in progress");
+                rejectUpload(response);
+                return;
+            }
+
+            response.setStatus(HttpServletResponse.SC_ACCEPTED);
+            response.setHeader("Location",
+                               request.getContextPath() + "/m2repo/deployments/" + status.getId());
+            response.setContentType("text/plain");
+            response.getWriter().write(status.getId());
+        } finally {
+            if (!queued) {
+                formData.closeFile();
+            }
+        }
+    }
+
+    private void deployUpload(final FormData formData,
+                              final DeploymentStatus status) {
+        status.running();
+        try {
+            final String result = upload(formData);
+            if (formData.getGav() != null) {
+                status.setGav(formData.getGav().toString());
+            }
+            if (UPLOAD_OK.equals(result)) {
+                status.succeeded(result);
+            } else {
+                status.failed(result);
+            }
+        } catch (RepositoryDeploymentException e) {
+            log.error(e.getMessage(), e);
+            status.failed(e);
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            status.failed(e.getMessage());
+        } finally {
+            formData.closeFile();
+        }
+    }
+
+    private void rejectUpload(final HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+        response.sendError(SC_TOO_MANY_REQUESTS, "Too many deployments in progress");
+    }
+
+    /**
+     * Uploads are deployed asynchronously if configured so or if the client asks for it with "Prefer: respond-async".
+     */
+    private boolean isAsync(final HttpServletRequest request) {
+        if (repositoryProperties.isAsyncUploadEnabled()) {
+            return true;
+        }
+        final String prefer = request.getHeader("Prefer");
+        return prefer != null && prefer.toLowerCase().contains(RESPOND_ASYNC);
     }
 
-    @SuppressWarnings("rawtypes")
     private FormData extractFormData(final HttpServletRequest request) {
+        if (repositoryProperties.isStreamingUploadEnabled()) {
+            return extractStreamingFormData(request);
+        }
+        return extractBufferedFormData(request);
+    }
+
+    /**
+     * Reads the form fields as they arrive and writes the file part straight to a temporary file, which is
+     * then resolved and deployed in place. Unlike parseRequest nothing is spooled or buffered beforehand, so
+     * the upload is written to disk only once.
+     */
+    private FormData extractStreamingFormData(final HttpServletRequest request) {
+        ServletFileUpload upload = new ServletFileUpload();
+        upload.setHeaderEncoding("UTF-8");
+
+        FormData data = new FormData();
+        GAV emptyGAV = new GAV();
+        try {
+            FileItemIterator items = upload.getItemIterator(request);
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (!item.isFormField()) {
+                    //Only the first file is deployed, any others are skipped by the iterator
+                    if (!data.hasFile() && !isNullOrEmpty(item.getName())) {
+                        data.setUploadedFile(writeToTempFile(item),
+                                             item.getName());
+                    }
+                    continue;
+                }
+
+                final String value;
+                try (InputStream is = item.openStream()) {
+                    value = Streams.asString(is,
+                                             "UTF-8");
+                }
+                if (item.getFieldName().equals(HTMLFileManagerFields.GROUP_ID)) {
+                    emptyGAV.setGroupId(value);
+                } else if (item.getFieldName().equals(HTMLFileManagerFields.ARTIFACT_ID)) {
+                    emptyGAV.setArtifactId(value);
+                } else if (item.getFieldName().equals(HTMLFileManagerFields.VERSION_ID)) {
+                    emptyGAV.setVersion(value);
+                }
+            }
+
+            if (isNullOrEmpty(emptyGAV.getGroupId())
+                    || isNullOrEmpty(emptyGAV.getArtifactId())
+                    || isNullOrEmpty(emptyGAV.getVersion())) {
+                data.setGav(null);
+            } else {
+                data.setGav(emptyGAV);
+            }
+
+            return data;
+        } catch (FileUploadException | IOException e) {
+            data.closeFile();
+            log.error(e.getMessage(), e);
+        }
+
+        return null;
+    }
+
+    private static File writeToTempFile(final FileItemStream item) throws IOException {
+        final File file = File.createTempFile("kbench-upload-",
+                                              ".tmp");
+        try (InputStream is = item.openStream()) {
+            Files.copy(is,
+                       file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(file);
+            throw e;
+        }
+        return file;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private FormData extractBufferedFormData(final HttpServletRequest request) {
         FileItemFactory factory = new DiskFileItemFactory();
         ServletFileUpload upload = new ServletFileUpload(factory);
         upload.setHeaderEncoding("UTF-8");
@@ -101,17 +294,24 @@ public class HttpPostHelper {
         return null;
     }
 
-    private String upload(final FormData formData) throws IOException {
-        //Validate upload
-        final FileItem fileItem = formData.getFile();
-        if (fileItem == null) {
+    private void validate(final FormData formData) throws IOException {
+        if (!formData.hasFile()) {
             throw new IOException("No file selected.");
         }
-        final String fileName = fileItem.getName();
+        final String fileName = formData.getFileName();
         if (isNullOrEmpty(fileName)) {
             throw new IOException("No file selected.");
         }
+        if (!isJar(fileName) && !isKJar(fileName) && !isPom(fileName)) {
+            throw new IOException("Unsupported file type selected.");
+        }
+    }
 
+    private String upload(final FormData formData) throws IOException {
+        //Validate upload
+        validate(formData);
+
+        final String fileName = formData.getFileName();
         if (isJar(fileName) || isKJar(fileName)) {
             return uploadJar(formData);
         } else if (isPom(fileName)) {
@@ -122,6 +322,10 @@ public class HttpPostHelper {
     }
 
     private String uploadJar(final FormData formData) throws IOException {
+        if (formData.getUploadedFile() != null) {
+            return uploadJarFile(formData);
+        }
+
         GAV gav = formData.getGav();
         InputStream jarStream = null;
 
@@ -135,25 +339,14 @@ public class HttpPostHelper {
                 // is available() safe?
                 jarStream.mark(jarStream.available());
 
-                PomModel pomModel = PomModelResolver.resolveFromJar(jarStream);
-
-                //If we were able to get a POM model we can get the GAV
-                if (pomModel != null) {
-                    String groupId = pomModel.getReleaseId().getGroupId();
-                    String artifactId = pomModel.getReleaseId().getArtifactId();
-                    String version = pomModel.getReleaseId().getVersion();
-
-                    if (isNullOrEmpty(groupId) || isNullOrEmpty(artifactId) || isNullOrEmpty(version)) {
-                        return UPLOAD_MISSING_POM;
-                    } else {
-                        gav = new GAV(groupId, artifactId, version);
-                    }
-                } else {
+                gav = PomModelResolver.resolveGAVFromJar(jarStream);
+                if (gav == null) {
                     return UPLOAD_MISSING_POM;
                 }
                 jarStream.reset();
             }
 
+            formData.setGav(gav);
             m2RepoService.deployJar(jarStream, gav);
 
             return UPLOAD_OK;
@@ -167,70 +360,54 @@ public class HttpPostHelper {
         }
     }
 
-    private String uploadPom(final FormData formData) throws IOException {
-        ReusableInputStream pomStream = null;
+    /**
+     * Deploys a streamed upload from the file it was written to, which spares reading it into memory to
+     * resolve the GAV and copying it to another temporary file to deploy it.
+     */
+    private String uploadJarFile(final FormData formData) {
+        GAV gav = formData.getGav();
+        if (gav == null) {
+            gav = PomModelResolver.resolveGAVFromJar(formData.getUploadedFile());
+            if (gav == null) {
+                return UPLOAD_MISSING_POM;
+            }
+        }
+
+        formData.setGav(gav);
+        m2RepoService.deployJar(formData.getUploadedFile(), gav);
 
+        return UPLOAD_OK;
+    }
+
+    private String uploadPom(final FormData formData) throws IOException {
         try {
             GAV gav;
-            pomStream = new ReusableInputStream(formData.getFile().getInputStream());
 
-            // is available() safe?
-            pomStream.mark(pomStream.available());
-
-            try {
+            //The upload is on disk or in memory already, so it is simply read twice
+            try (InputStream pomStream = formData.openStream()) {
                 final PomModel pomModel = PomModelResolver.resolveFromPom(pomStream);
-                final String groupId = pomModel.getReleaseId().getGroupId();
-                final String artifactId = pomModel.getReleaseId().getArtifactId();
-                final String version = pomModel.getReleaseId().getVersion();
-
-                if (isNullOrEmpty(groupId) || isNullOrEmpty(artifactId) || isNullOrEmpty(version)) {
+                gav = PomModelResolver.toGAV(pomModel);
+                if (gav == null) {
                     return UPLOAD_UNABLE_TO_PARSE_POM;
-                } else {
-                    gav = new GAV(groupId, artifactId, version);
                 }
             } catch (Exception e) {
                 log.error("Could not parse the uploaded POM.XML file.", e);
                 return UPLOAD_UNABLE_TO_PARSE_POM;
             }
-            pomStream.reset();
 
-            m2RepoService.deployPom(pomStream, gav);
+            formData.setGav(gav);
+            try (InputStream pomStream = formData.openStream()) {
+                m2RepoService.deployPom(pomStream, gav);
+            }
 
             return UPLOAD_OK;
         } catch (IOException ioe) {
             log.error(ioe.getMessage(), ioe);
             throw ExceptionUtilities.handleException(ioe);
-        } finally {
-            if (pomStream != null) {
-                pomStream.doClose();
-            }
         }
     }
 
     private boolean isNullOrEmpty(String value) {
         return value == null || value.isEmpty();
     }
-
-    /**
-     * PomModelResolver uses org.kie.scanner.embedder.MavenEmbedder which closes the underlying
-     * InputStream once the PomModel has been resolved. We however need to keep the InputStream
-     * open to be able to write the file to GuvnorM2Repository. Therefore this sub-class
-     * overrides close to prevent the InputStream from being closed prematurely.
-     */
-    private static class ReusableInputStream extends BufferedInputStream {
-
-        public ReusableInputStream(InputStream in) {
-            super(in);
-        }
-
-        @Override
-        public void close() throws IOException {
-            //Do nothing.
-        }
-
-        void doClose() throws IOException {
-            //Do the closure
-            super.close();
-        }
-    }
 }
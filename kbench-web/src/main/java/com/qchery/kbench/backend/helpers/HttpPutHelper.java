@@ -17,7 +17,8 @@
 package com.qchery.kbench.backend.helpers;
 
 import com.qchery.kbench.backend.GuvnorM2Repository;
-import org.apache.commons.io.IOUtils;
+import com.qchery.kbench.backend.io.RepositoryFiles;
+import com.qchery.kbench.backend.lock.RepositoryLocks;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,22 +26,38 @@ import org.springframework.stereotype.Component;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class HttpPutHelper {
 
     private static final Logger log = LoggerFactory.getLogger(HttpPutHelper.class);
 
+    private static final int BUFFER_SIZE = 65536;
+    private static final String[] CHECKSUM_EXTENSIONS = {".sha1", ".md5", ".sha256", ".sha512", ".asc"};
+
     @Autowired
     private GuvnorM2Repository m2RepoService;
 
+    @Autowired
+    private RepositoryLocks repositoryLocks;
+
     public void handle(final HttpServletRequest request,
                        final HttpServletResponse response, String pathInfo) throws IOException {
 
         final InputStream inputStream = request.getInputStream();
-        OutputStream outputStream = null;
+        Path tmp = null;
         int status = HttpServletResponse.SC_OK;
 
         try {
@@ -65,29 +82,72 @@ public class HttpPutHelper {
             pathInfo = canonicalEntryPath.substring(canonicalDirPath.length());
             final File file = new File(mavenRootDir, pathInfo);
 
-            //Create new file if it does not already exist and set status code to 201
+            //Set status code to 201 if the file does not already exist
             //See http://www.w3.org/Protocols/rfc2616/rfc2616-sec9.html Section 9.6 PUT
             if (!file.exists()) {
                 file.getParentFile().mkdirs();
-                file.createNewFile();
                 status = HttpServletResponse.SC_CREATED;
             }
 
-            outputStream = new BufferedOutputStream(new FileOutputStream(file));
+            //Copy input to a hidden file next to the target, so readers never see a partial file
+            tmp = RepositoryFiles.createPartFile(file);
+            final MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
+            final MessageDigest md5 = MessageDigest.getInstance("MD5");
+            final MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (OutputStream outputStream = Files.newOutputStream(tmp)) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = inputStream.read(buffer)) != -1) {
+                    sha1.update(buffer, 0, read);
+                    md5.update(buffer, 0, read);
+                    sha256.update(buffer, 0, read);
+                    outputStream.write(buffer, 0, read);
+                }
+            }
+
+            final String sha1Hex = RepositoryFiles.toHex(sha1.digest());
+            final String md5Hex = RepositoryFiles.toHex(md5.digest());
+            final String sha256Hex = RepositoryFiles.toHex(sha256.digest());
+            if (!verifyChecksum(request, "X-Checksum-Sha1", sha1Hex)
+                    || !verifyChecksum(request, "X-Checksum-Md5", md5Hex)
+                    || !verifyChecksum(request, "X-Checksum-Sha256", sha256Hex)) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Checksum mismatch");
+                return;
+            }
+
+            //Only publishing is serialized with other writers of the artifact, receiving the body is not
+            final RepositoryLocks.Held held = repositoryLocks.lockPath(pathInfo);
+            try {
+                RepositoryFiles.publish(tmp, file.toPath());
+                tmp = null;
+
+                final List<File> changed = new ArrayList<>();
+                changed.add(file);
+                if (!isChecksum(file.getName())) {
+                    changed.add(writeChecksum(file, ".sha1", sha1Hex));
+                    changed.add(writeChecksum(file, ".md5", md5Hex));
+                }
 
-            //Copy input
-            IOUtils.copy(inputStream, outputStream);
+                m2RepoService.refresh(repositoryName, changed.toArray(new File[0]));
+            } finally {
+                held.close();
+            }
 
+            response.setHeader("X-Checksum-Sha1", sha1Hex);
+            response.setHeader("X-Checksum-Md5", md5Hex);
+            response.setHeader("X-Checksum-Sha256", sha256Hex);
             response.setStatus(status);
-        } catch (IOException e) {
+        } catch (IOException | NoSuchAlgorithmException e) {
             log.error(e.toString(), e);
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         } finally {
-            if (outputStream != null) {
+            if (tmp != null) {
                 try {
-                    outputStream.flush();
-                    outputStream.close();
+                    Files.deleteIfExists(tmp);
                 } catch (IOException e) {
-                    //Swallow
+                    log.warn("Unable to remove temporary file '" + tmp + "'");
                 }
             }
             if (inputStream != null) {
@@ -99,4 +159,39 @@ public class HttpPutHelper {
             }
         }
     }
+
+    /**
+     * Checks a checksum the client sent along, as Maven and Gradle do with the X-Checksum-* headers.
+     *
+     * @return true if the client sent none or the checksum matches
+     */
+    private static boolean verifyChecksum(final HttpServletRequest request,
+                                          final String header,
+                                          final String actual) {
+        final String expected = request.getHeader(header);
+        return expected == null || expected.trim().equalsIgnoreCase(actual);
+    }
+
+    private static boolean isChecksum(final String fileName) {
+        for (String extension : CHECKSUM_EXTENSIONS) {
+            if (fileName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static File writeChecksum(final File file,
+                                      final String extension,
+                                      final String checksum) throws IOException {
+        final File checksumFile = new File(file.getPath() + extension);
+        final Path tmp = RepositoryFiles.createPartFile(checksumFile);
+        try {
+            Files.write(tmp, checksum.getBytes(StandardCharsets.US_ASCII));
+            RepositoryFiles.publish(tmp, checksumFile.toPath());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return checksumFile;
+    }
 }
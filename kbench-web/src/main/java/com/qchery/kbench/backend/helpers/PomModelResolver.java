@@ -15,17 +15,21 @@
 
 package com.qchery.kbench.backend.helpers;
 
-import com.qchery.kbench.backend.GuvnorM2Repository;
+import com.qchery.kbench.backend.zip.MavenJarMetadata;
 import org.apache.maven.project.ProjectBuildingException;
 import org.appformer.maven.integration.embedder.MavenEmbedderException;
 import org.appformer.maven.support.AFReleaseId;
 import org.appformer.maven.support.AFReleaseIdImpl;
 import org.appformer.maven.support.PomModel;
+import org.guvnor.common.services.project.model.GAV;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 
 public class PomModelResolver {
 
@@ -33,34 +37,92 @@ public class PomModelResolver {
 
     /**
      * Construct a PomModel from a JAR by parsing first the pom.xml file within the JAR
-     * and if not present a pom.properties file in the JAR.
+     * and if not present a pom.properties file in the JAR. Both are read with a single pass over the stream.
      * @param jarStream InputStream to the JAR
      * @return a populated PomModel or null if neither pom.xml or pom.properties existed in the JAR
      */
     public static PomModel resolveFromJar(InputStream jarStream) {
-        //Attempt to load JAR's POM information from it's pom.xml file
-        PomModel pomModel = null;
         try {
-            String pomXML = GuvnorM2Repository.loadPomFromJar(jarStream);
-            if (pomXML != null) {
-                pomModel = PomModel.Parser.parse("pom.xml",
-                                                 new ByteArrayInputStream(pomXML.getBytes()));
-            }
-        } catch (Exception e) {
-            log.info("Failed to parse pom.xml for GAV information. Falling back to pom.properties.",
+            return toPomModel(MavenJarMetadata.read(jarStream));
+        } catch (IOException e) {
+            log.info("Failed to read JAR for GAV information.",
                      e);
+            return null;
+        }
+    }
+
+    /**
+     * Resolve the GAV of a JAR with a single pass over the stream. It is taken from pom.properties, the
+     * pom.xml file is only parsed if there is no complete pom.properties.
+     * @param jarStream InputStream to the JAR, it is not reset
+     * @return the GAV or null if it could not be resolved
+     */
+    public static GAV resolveGAVFromJar(InputStream jarStream) {
+        try {
+            return toGAV(MavenJarMetadata.read(jarStream));
+        } catch (IOException e) {
+            log.info("Failed to read JAR for GAV information.",
+                     e);
+            return null;
+        }
+    }
+
+    /**
+     * Resolve the GAV of a JAR file like {@link #resolveGAVFromJar(InputStream)}, looking the pom.xml
+     * and pom.properties entries up in the central directory instead of reading the whole JAR.
+     * @param jarFile the JAR
+     * @return the GAV or null if it could not be resolved
+     */
+    public static GAV resolveGAVFromJar(File jarFile) {
+        try {
+            return toGAV(MavenJarMetadata.read(jarFile));
+        } catch (IOException e) {
+            log.info("Failed to read JAR for GAV information.",
+                     e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the GAV of the model or null if there is no model or its GAV is incomplete
+     */
+    public static GAV toGAV(PomModel pomModel) {
+        if (pomModel == null || pomModel.getReleaseId() == null) {
+            return null;
+        }
+        final String groupId = pomModel.getReleaseId().getGroupId();
+        final String artifactId = pomModel.getReleaseId().getArtifactId();
+        final String version = pomModel.getReleaseId().getVersion();
+
+        if (isNullOrEmpty(groupId) || isNullOrEmpty(artifactId) || isNullOrEmpty(version)) {
+            return null;
+        }
+        return new GAV(groupId,
+                       artifactId,
+                       version);
+    }
+
+    private static GAV toGAV(MavenJarMetadata metadata) {
+        final GAV gav = metadata.getGAV();
+        if (gav != null || metadata.getPomXml() == null) {
+            return gav;
+        }
+        return toGAV(parsePomXml(metadata.getPomXml()));
+    }
+
+    private static PomModel toPomModel(MavenJarMetadata metadata) {
+        //Attempt to load JAR's POM information from it's pom.xml file
+        PomModel pomModel = null;
+        if (metadata.getPomXml() != null) {
+            pomModel = parsePomXml(metadata.getPomXml());
         }
 
         //Attempt to load JAR's POM information from it's pom.properties file
-        if (pomModel == null) {
+        if (pomModel == null && metadata.getPomProperties() != null) {
             try {
-                jarStream.reset();
-                String pomProperties = GuvnorM2Repository.loadPomPropertiesFromJar(jarStream);
-                if (pomProperties != null) {
-                    final AFReleaseId releaseId = AFReleaseIdImpl.fromPropertiesString(pomProperties);
-                    pomModel = new PomModel.InternalModel();
-                    ((PomModel.InternalModel) pomModel).setReleaseId(releaseId);
-                }
+                final AFReleaseId releaseId = AFReleaseIdImpl.fromPropertiesString(metadata.getPomProperties());
+                pomModel = new PomModel.InternalModel();
+                ((PomModel.InternalModel) pomModel).setReleaseId(releaseId);
             } catch (Exception e) {
                 log.info("Failed to parse pom.properties for GAV information.");
             }
@@ -68,6 +130,21 @@ public class PomModelResolver {
         return pomModel;
     }
 
+    private static PomModel parsePomXml(String pomXml) {
+        try {
+            return PomModel.Parser.parse("pom.xml",
+                                         new ByteArrayInputStream(pomXml.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.info("Failed to parse pom.xml for GAV information. Falling back to pom.properties.",
+                     e);
+            return null;
+        }
+    }
+
+    private static boolean isNullOrEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
     /**
      * Construct a PomModel from a pom.xml file
      * @param pomStream InputStream to the pom.xml file
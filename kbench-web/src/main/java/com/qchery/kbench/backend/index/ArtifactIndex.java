@@ -0,0 +1,504 @@
+package com.qchery.kbench.backend.index;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Index of the files below a repository root, so listing doesn't need to walk the file system.
+ * <p>
+ * The index is kept in memory and persisted as an append-only journal: every change is written as
+ * one "+" (added or updated) or "-" (removed) record. The journal is replayed on startup and compacted
+ * into a snapshot once it holds too many stale records. A full walk of the repository only happens
+ * when there is no journal yet or when {@link #rebuild()} is called explicitly.
+ * <p>
+ * The directories holding files are also kept in a Bloom filter, which answers that a directory holds
+ * no files without looking at the entries, ie., to tell that an artifact doesn't exist.
+ *
+ * @author Chery
+ * @date 2026/10/18 10:12
+ */
+public class ArtifactIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactIndex.class);
+
+    private static final String HEADER = "#kbench-artifact-index 1";
+    private static final char ADDED = '+';
+    private static final char REMOVED = '-';
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+    private static final int MIN_DIRECTORY_FILTER_CAPACITY = 1024;
+    private static final double DIRECTORY_FILTER_FPP = 0.01;
+    private static final String SNAPSHOT = "SNAPSHOT";
+    // What follows the base version in the name of a deployed snapshot JAR, ie., "20181018.101500-3.jar"
+    private static final Pattern TIMESTAMPED_JAR = Pattern.compile("\\d{8}\\.\\d{6}-\\d+\\.jar");
+
+    private final String repositoryName;
+    private final Path rootDir;
+    private final Path indexFile;
+
+    private volatile NavigableMap<String, ArtifactIndexEntry> entries = new ConcurrentSkipListMap<>();
+
+    private Writer journal;
+    private int journalRecords;
+
+    // Only ever gains directories until it is rebuilt, removed files leave false positives behind
+    private volatile BloomFilter<CharSequence> directoryFilter;
+    private int directoryFilterCapacity;
+    private int directoryFilterInsertions;
+
+    /**
+     * @param repositoryName the name of the indexed repository
+     * @param rootDir        the root dir of the indexed repository
+     * @param indexFile      the file the index is persisted to, null to keep the index in memory only
+     */
+    public ArtifactIndex(final String repositoryName,
+                         final String rootDir,
+                         final File indexFile) {
+        this.repositoryName = repositoryName;
+        this.rootDir = new File(rootDir).toPath().toAbsolutePath().normalize();
+        this.indexFile = indexFile == null ? null : indexFile.toPath().toAbsolutePath();
+    }
+
+    /**
+     * Loads the persisted index, falling back to a full rebuild when there is none.
+     * @param rebuild true to ignore the persisted index and walk the repository
+     */
+    public synchronized void open(final boolean rebuild) {
+        if (!rebuild && indexFile != null && Files.isRegularFile(indexFile)) {
+            try {
+                load();
+                log.info("Loaded {} entries of repository '{}' from index {}",
+                         entries.size(),
+                         repositoryName,
+                         indexFile);
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Unable to load index " + indexFile + ", rebuilding it.",
+                         e);
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Walks the repository and replaces the index with its current content.
+     */
+    public synchronized void rebuild() {
+        final long start = System.currentTimeMillis();
+        final NavigableMap<String, ArtifactIndexEntry> rebuilt = new ConcurrentSkipListMap<>();
+        try {
+            if (Files.isDirectory(rootDir)) {
+                Files.walkFileTree(rootDir,
+                                   new SimpleFileVisitor<Path>() {
+                                       @Override
+                                       public FileVisitResult preVisitDirectory(final Path dir,
+                                                                                final BasicFileAttributes attrs) {
+                                           if (!dir.equals(rootDir) && isHidden(dir)) {
+                                               return FileVisitResult.SKIP_SUBTREE;
+                                           }
+                                           return FileVisitResult.CONTINUE;
+                                       }
+
+                                       @Override
+                                       public FileVisitResult visitFile(final Path file,
+                                                                        final BasicFileAttributes attrs) {
+                                           final ArtifactIndexEntry entry = toEntry(file,
+                                                                                    attrs);
+                                           if (entry != null) {
+                                               rebuilt.put(entry.getPath(),
+                                                           entry);
+                                           }
+                                           return FileVisitResult.CONTINUE;
+                                       }
+
+                                       @Override
+                                       public FileVisitResult visitFileFailed(final Path file,
+                                                                              final IOException e) {
+                                           log.warn("Unable to index {}: {}",
+                                                    file,
+                                                    e.getMessage());
+                                           return FileVisitResult.CONTINUE;
+                                       }
+                                   });
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.entries = rebuilt;
+        rebuildDirectoryFilter();
+        compact();
+        log.info("Indexed {} files of repository '{}' in {} ms",
+                 rebuilt.size(),
+                 repositoryName,
+                 System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Re-reads files into the index. Missing files are removed, directories are reconciled with the
+     * files they directly contain.
+     * @param files files or directories below the repository root
+     */
+    public synchronized void refresh(final File... files) {
+        for (File file : files) {
+            final Path path = file.toPath().toAbsolutePath().normalize();
+            if (!path.startsWith(rootDir) || path.equals(rootDir)) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                refreshDirectory(path);
+            } else if (Files.exists(path)) {
+                refreshFile(path);
+            } else {
+                removeTree(toRelativePath(path));
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Removes a file, or everything below a directory, from the index.
+     * @param file a file or directory below the repository root
+     */
+    public synchronized void remove(final File file) {
+        final Path path = file.toPath().toAbsolutePath().normalize();
+        if (!path.startsWith(rootDir) || path.equals(rootDir)) {
+            return;
+        }
+        removeTree(toRelativePath(path));
+        flush();
+    }
+
+    public ArtifactIndexEntry get(final String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * Tells from memory whether a directory may hold files. The filter only gains directories while files
+     * are added, so a concurrent reader at worst misses a directory whose first file is being indexed.
+     * @param dir a directory relative to the repository root, ie., "org/kie/example/1.0"
+     * @return false if no file of the directory is indexed, true if one might be
+     */
+    public boolean mightContainFilesIn(final String dir) {
+        final BloomFilter<CharSequence> filter = directoryFilter;
+        return filter == null || filter.mightContain(dir);
+    }
+
+    /**
+     * Tells whether the main JAR of an artifact is indexed, ie., &lt;artifactId&gt;-&lt;version&gt;.jar or, for a
+     * snapshot, &lt;artifactId&gt;-&lt;base version&gt;-&lt;timestamp&gt;-&lt;build number&gt;.jar. JARs with a
+     * classifier, ie., -sources.jar, don't count.
+     * @param dir        the version directory relative to the repository root, ie., "org/kie/example/1.0"
+     * @param artifactId the artifact id
+     * @param version    the version, ie., "1.0" or "1.0-SNAPSHOT"
+     * @return true if the directory directly holds the main JAR of the artifact
+     */
+    public boolean containsJarIn(final String dir,
+                                 final String artifactId,
+                                 final String version) {
+        final String prefix = dir + "/";
+        if (entries.containsKey(prefix + artifactId + "-" + version + ".jar")) {
+            return true;
+        }
+        if (!version.endsWith(SNAPSHOT)) {
+            return false;
+        }
+        final String snapshotPrefix = prefix + artifactId + "-" + version.substring(0,
+                                                                                    version.length() - SNAPSHOT.length());
+        for (String path : entries.subMap(snapshotPrefix,
+                                          snapshotPrefix + "\uffff").keySet()) {
+            if (TIMESTAMPED_JAR.matcher(path.substring(snapshotPrefix.length())).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return all entries, ordered by path
+     */
+    public Collection<ArtifactIndexEntry> getEntries() {
+        return entries.values();
+    }
+
+    /**
+     * Finds the entries whose file names match any of the wildcards.
+     * @param wildcards the filtering wildcards
+     * @return the matching entries, ordered by path
+     */
+    public List<ArtifactIndexEntry> find(final List<String> wildcards) {
+        return entries.values()
+                .stream()
+                .filter(entry -> entry.matches(wildcards))
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public synchronized void close() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("Unable to close index {}: {}",
+                         indexFile,
+                         e.getMessage());
+            }
+            journal = null;
+        }
+    }
+
+    private void refreshDirectory(final Path dir) {
+        final String prefix = toRelativePath(dir) + "/";
+        for (String path : entries.subMap(prefix,
+                                          prefix + "\uffff").keySet()) {
+            if (path.indexOf('/',
+                             prefix.length()) < 0 && !Files.isRegularFile(rootDir.resolve(path))) {
+                remove(path);
+            }
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                if (Files.isRegularFile(child)) {
+                    refreshFile(child);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Unable to refresh index for {}: {}",
+                     dir,
+                     e.getMessage());
+        }
+    }
+
+    private void refreshFile(final Path file) {
+        ArtifactIndexEntry entry = null;
+        if (Files.isRegularFile(file)) {
+            try {
+                entry = toEntry(file,
+                                Files.readAttributes(file,
+                                                     BasicFileAttributes.class));
+            } catch (IOException e) {
+                log.warn("Unable to refresh index for {}: {}",
+                         file,
+                         e.getMessage());
+            }
+        }
+        if (entry == null) {
+            remove(toRelativePath(file));
+            return;
+        }
+        final ArtifactIndexEntry previous = entries.put(entry.getPath(),
+                                                        entry);
+        if (previous == null) {
+            addToDirectoryFilter(entry.getPath());
+        }
+        if (previous == null || previous.getSize() != entry.getSize() || previous.getLastModified() != entry.getLastModified()) {
+            append(ADDED + "\t" + entry.getPath() + "\t" + entry.getSize() + "\t" + entry.getLastModified());
+        }
+    }
+
+    private void rebuildDirectoryFilter() {
+        // Sized for the files rather than their directories, which leaves room for new directories
+        final int capacity = Math.max(MIN_DIRECTORY_FILTER_CAPACITY,
+                                      2 * entries.size());
+        final BloomFilter<CharSequence> filter = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                                                                    capacity,
+                                                                    DIRECTORY_FILTER_FPP);
+        for (String path : entries.keySet()) {
+            filter.put(parent(path));
+        }
+        directoryFilterCapacity = capacity;
+        directoryFilterInsertions = entries.size();
+        directoryFilter = filter;
+    }
+
+    private void addToDirectoryFilter(final String path) {
+        if (directoryFilter == null || ++directoryFilterInsertions > directoryFilterCapacity) {
+            rebuildDirectoryFilter();
+        } else {
+            directoryFilter.put(parent(path));
+        }
+    }
+
+    private static String parent(final String path) {
+        final int index = path.lastIndexOf('/');
+        return index < 0 ? "" : path.substring(0,
+                                               index);
+    }
+
+    private void removeTree(final String relative) {
+        remove(relative);
+        for (String child : entries.subMap(relative + "/",
+                                           relative + "/\uffff").keySet()) {
+            remove(child);
+        }
+    }
+
+    private void remove(final String path) {
+        if (entries.remove(path) != null) {
+            append(REMOVED + "\t" + path);
+        }
+    }
+
+    private ArtifactIndexEntry toEntry(final Path file,
+                                       final BasicFileAttributes attrs) {
+        if (!attrs.isRegularFile() || isHidden(file)) {
+            return null;
+        }
+        final String path = toRelativePath(file);
+        // tabs and line breaks are the journal separators
+        if (path.indexOf('\t') >= 0 || path.indexOf('\n') >= 0 || path.indexOf('\r') >= 0) {
+            return null;
+        }
+        return new ArtifactIndexEntry(path,
+                                      repositoryName,
+                                      attrs.size(),
+                                      attrs.lastModifiedTime().toMillis());
+    }
+
+    private String toRelativePath(final Path path) {
+        return rootDir.relativize(path).toString().replace(File.separatorChar,
+                                                           '/');
+    }
+
+    private static boolean isHidden(final Path path) {
+        return path.getFileName().toString().startsWith(".");
+    }
+
+    private void load() throws IOException {
+        final NavigableMap<String, ArtifactIndexEntry> loaded = new ConcurrentSkipListMap<>();
+        int records = 0;
+        try (BufferedReader reader = Files.newBufferedReader(indexFile,
+                                                             StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException("Unsupported index format");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String[] record = line.split("\t");
+                if (record.length == 4 && record[0].charAt(0) == ADDED) {
+                    loaded.put(record[1],
+                               new ArtifactIndexEntry(record[1],
+                                                      repositoryName,
+                                                      Long.parseLong(record[2]),
+                                                      Long.parseLong(record[3])));
+                } else if (record.length == 2 && record[0].charAt(0) == REMOVED) {
+                    loaded.remove(record[1]);
+                } else {
+                    // a torn record at the end of the journal, the remaining index is still valid
+                    log.warn("Ignoring malformed index record in {}: {}",
+                             indexFile,
+                             line);
+                }
+                records++;
+            }
+        }
+        this.entries = loaded;
+        this.journalRecords = records;
+        rebuildDirectoryFilter();
+        if (journalRecords > Math.max(MIN_COMPACTION_RECORDS,
+                                      2 * entries.size())) {
+            compact();
+        } else {
+            openJournal();
+        }
+    }
+
+    /**
+     * Rewrites the journal as a snapshot holding one record per entry.
+     */
+    private void compact() {
+        if (indexFile == null) {
+            return;
+        }
+        close();
+        try {
+            Files.createDirectories(indexFile.getParent());
+            final Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp,
+                                                                 StandardCharsets.UTF_8)) {
+                writer.write(HEADER);
+                writer.newLine();
+                for (ArtifactIndexEntry entry : entries.values()) {
+                    writer.write(ADDED + "\t" + entry.getPath() + "\t" + entry.getSize() + "\t" + entry.getLastModified());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp,
+                       indexFile,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+            journalRecords = entries.size();
+            openJournal();
+        } catch (IOException e) {
+            log.error("Unable to write index " + indexFile,
+                      e);
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journal = Files.newBufferedWriter(indexFile,
+                                          StandardCharsets.UTF_8,
+                                          StandardOpenOption.WRITE,
+                                          StandardOpenOption.APPEND);
+    }
+
+    private void append(final String record) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.write(record);
+            journal.write('\n');
+            journalRecords++;
+        } catch (IOException e) {
+            log.error("Unable to append to index " + indexFile + ", it will be rebuilt on next startup.",
+                      e);
+            close();
+            try {
+                Files.deleteIfExists(indexFile);
+            } catch (IOException ignored) {
+                //Swallow
+            }
+        }
+    }
+
+    private void flush() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            log.error("Unable to flush index " + indexFile,
+                      e);
+        }
+        if (journalRecords > Math.max(MIN_COMPACTION_RECORDS,
+                                      2 * entries.size())) {
+            compact();
+        }
+    }
+}
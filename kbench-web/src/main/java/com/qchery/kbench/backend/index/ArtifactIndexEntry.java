@@ -0,0 +1,130 @@
+package com.qchery.kbench.backend.index;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.guvnor.common.services.project.model.GAV;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * A single file of an {@link ArtifactIndex}. The GAV is derived from the Maven layout of the path,
+ * ie., "org/kie/example/1.0/example-1.0.jar" belongs to "org.kie:example:1.0".
+ *
+ * @author Chery
+ * @date 2026/10/18 10:12
+ */
+public class ArtifactIndexEntry {
+
+    private final String path;
+    private final String repositoryName;
+    private final String groupId;
+    private final String artifactId;
+    private final String version;
+    private final String extension;
+    private final long size;
+    private final long lastModified;
+
+    public ArtifactIndexEntry(final String path,
+                              final String repositoryName,
+                              final long size,
+                              final long lastModified) {
+        this.path = path;
+        this.repositoryName = repositoryName;
+        this.size = size;
+        this.lastModified = lastModified;
+        this.extension = FilenameUtils.getExtension(path);
+
+        final String[] segments = path.split("/");
+        if (segments.length >= 4) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < segments.length - 3; i++) {
+                if (i > 0) {
+                    sb.append('.');
+                }
+                sb.append(segments[i]);
+            }
+            this.groupId = sb.toString();
+            this.artifactId = segments[segments.length - 3];
+            this.version = segments[segments.length - 2];
+        } else {
+            this.groupId = null;
+            this.artifactId = null;
+            this.version = null;
+        }
+    }
+
+    /**
+     * @return the path relative to the repository root, always separated by "/"
+     */
+    public String getPath() {
+        return path;
+    }
+
+    public String getName() {
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    public String getRepositoryName() {
+        return repositoryName;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getArtifactId() {
+        return artifactId;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the GAV derived from the path or null if the path is not in Maven layout
+     */
+    public GAV getGav() {
+        if (groupId == null) {
+            return null;
+        }
+        return new GAV(groupId,
+                       artifactId,
+                       version);
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public File getFile(final String rootDir) {
+        return new File(rootDir,
+                        path.replace('/',
+                                     File.separatorChar));
+    }
+
+    /**
+     * Matches the file name the same way {@link org.apache.commons.io.filefilter.WildcardFileFilter} does.
+     * @param wildcards the filtering wildcards
+     * @return true if any of the wildcards matches the file name
+     */
+    public boolean matches(final List<String> wildcards) {
+        final String name = getName();
+        for (String wildcard : wildcards) {
+            if (FilenameUtils.wildcardMatch(name,
+                                            wildcard,
+                                            IOCase.INSENSITIVE)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,63 @@
+package com.qchery.kbench.backend.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes files of a repository the way readers never see a partial file: the content goes into a hidden part
+ * file next to the file, which the repository index skips, and is then moved over the file.
+ *
+ * @author Chery
+ * @date 2026/10/18 22:00
+ */
+public final class RepositoryFiles {
+
+    private RepositoryFiles() {
+    }
+
+    /**
+     * Creates the hidden part file a file is written into. It gets the permissions of the umask, as the files
+     * Aether writes do, rather than the owner-only ones of {@link Files#createTempFile}, and keeps them when it
+     * is published.
+     */
+    public static Path createPartFile(final File file) throws IOException {
+        return File.createTempFile("." + file.getName() + ".",
+                                   ".part",
+                                   file.getParentFile()).toPath();
+    }
+
+    /**
+     * Moves a part file over the file, atomically if the file system supports it.
+     */
+    public static void publish(final Path tmp,
+                               final Path file) throws IOException {
+        try {
+            Files.move(tmp,
+                       file,
+                       StandardCopyOption.REPLACE_EXISTING,
+                       StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp,
+                       file,
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return the bytes as lower case hex, as checksum files hold them
+     */
+    public static String toHex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF,
+                                         16))
+                    .append(Character.forDigit(b & 0xF,
+                                               16));
+        }
+        return sb.toString();
+    }
+}
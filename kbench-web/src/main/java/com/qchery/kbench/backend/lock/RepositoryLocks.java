@@ -0,0 +1,226 @@
+package com.qchery.kbench.backend.lock;
+
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serializes writers of the same artifact across PUT uploads and deployments. Paths are mapped onto a
+ * fixed number of lock stripes, so memory stays bounded however many artifacts there are, while writers of
+ * different artifacts only wait for each other if their paths happen to share a stripe.
+ * <p>
+ * A writer locks the directory of the file it writes and the directory above, which for a Maven layout are
+ * the version and artifact directories, ie., "org/kie/example/1.0" and "org/kie/example", so it also excludes
+ * concurrent updates of the maven-metadata.xml files. The time spent waiting is exported over JMX.
+ *
+ * @author Chery
+ * @date 2026/10/18 17:20
+ */
+@Component
+@ManagedResource(objectName = "com.qchery.kbench:type=RepositoryLocks", description = "Repository write locks")
+public class RepositoryLocks {
+
+    private static final Logger log = LoggerFactory.getLogger(RepositoryLocks.class);
+
+    private static final long SLOW_WAIT_MILLIS = 1000;
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    private ReentrantLock[] stripes;
+    private long timeout;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        // Rounded up to a power of two so a stripe is picked by masking the hash
+        final int count = Integer.highestOneBit(Math.max(1,
+                                                         repositoryProperties.getLockStripes() - 1)) << 1;
+        stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        timeout = repositoryProperties.getLockTimeout();
+    }
+
+    /**
+     * Locks the artifact a repository file belongs to.
+     *
+     * @param relativePath the path of the file relative to the repository root
+     */
+    public Held lockPath(final String relativePath) {
+        final String path = relativePath.replace('\\',
+                                                 '/');
+        final List<String> keys = new ArrayList<>();
+        String dir = parent(path);
+        for (int i = 0; i < 2 && dir != null; i++) {
+            keys.add(dir);
+            dir = parent(dir);
+        }
+        return lock(keys);
+    }
+
+    /**
+     * Locks the artifact of a GAV, which excludes writers of any of its files.
+     */
+    public Held lockGav(final GAV gav) {
+        return lockGavs(Collections.singletonList(gav));
+    }
+
+    /**
+     * Locks the artifacts of several GAVs at once, ie., for a batch deployment.
+     */
+    public Held lockGavs(final Collection<GAV> gavs) {
+        final List<String> keys = new ArrayList<>();
+        for (GAV gav : gavs) {
+            final String artifactDir = gav.getGroupId().replace('.',
+                                                                '/') + "/" + gav.getArtifactId();
+            keys.add(artifactDir + "/" + gav.getVersion());
+            keys.add(artifactDir);
+        }
+        return lock(keys);
+    }
+
+    /**
+     * Locks the artifact directory of a group and artifact id, which excludes writers of any of its versions,
+     * ie., while versions are deleted.
+     */
+    public Held lockArtifact(final String groupId,
+                             final String artifactId) {
+        return lock(Collections.singletonList(groupId.replace('.',
+                                                              '/') + "/" + artifactId));
+    }
+
+    private Held lock(final List<String> keys) {
+        // Stripes are always taken in ascending order, so writers can't deadlock each other
+        final TreeSet<Integer> indexes = new TreeSet<>();
+        for (String key : keys) {
+            indexes.add(stripe(key));
+        }
+
+        final List<ReentrantLock> held = new ArrayList<>(indexes.size());
+        final long start = System.nanoTime();
+        boolean contended = false;
+        try {
+            for (int index : indexes) {
+                final ReentrantLock lock = stripes[index];
+                if (!lock.tryLock()) {
+                    contended = true;
+                    final long remaining = TimeUnit.MILLISECONDS.toNanos(timeout) - (System.nanoTime() - start);
+                    if (!lock.tryLock(remaining,
+                                      TimeUnit.NANOSECONDS)) {
+                        timeouts.increment();
+                        throw new RuntimeException(String.format("Timed out after %d ms waiting for the lock of %s",
+                                                                 timeout,
+                                                                 keys));
+                    }
+                }
+                held.add(lock);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the lock of " + keys,
+                                       e);
+        } finally {
+            if (held.size() < indexes.size()) {
+                unlock(held);
+            }
+        }
+
+        final long waited = System.nanoTime() - start;
+        acquisitions.increment();
+        if (contended) {
+            contentions.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited,
+                                          Math::max);
+            if (TimeUnit.NANOSECONDS.toMillis(waited) >= SLOW_WAIT_MILLIS) {
+                log.info("Waited {} ms for the lock of {}",
+                         TimeUnit.NANOSECONDS.toMillis(waited),
+                         keys);
+            }
+        }
+        return new Held(held);
+    }
+
+    private int stripe(final String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+
+    private static String parent(final String path) {
+        final int index = path.lastIndexOf('/');
+        return index > 0 ? path.substring(0,
+                                          index) : null;
+    }
+
+    private static void unlock(final List<ReentrantLock> locks) {
+        for (int i = locks.size() - 1; i >= 0; i--) {
+            locks.get(i).unlock();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of locks acquired")
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    @ManagedAttribute(description = "Number of acquisitions which had to wait")
+    public long getContentions() {
+        return contentions.sum();
+    }
+
+    @ManagedAttribute(description = "Number of acquisitions which timed out")
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @ManagedAttribute(description = "Total time spent waiting for locks in milliseconds")
+    public long getTotalWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    @ManagedAttribute(description = "Longest time spent waiting for a lock in milliseconds")
+    public long getMaxWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get());
+    }
+
+    /**
+     * Locks held by a writer, released on {@link #close()}.
+     */
+    public static class Held implements AutoCloseable {
+
+        private final List<ReentrantLock> locks;
+
+        private Held(final List<ReentrantLock> locks) {
+            this.locks = locks;
+        }
+
+        @Override
+        public void close() {
+            unlock(locks);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.qchery.kbench.backend.metadata;
+
+import com.qchery.kbench.backend.io.RepositoryFiles;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads and rewrites the maven-metadata files of a repository. Aether writes maven-metadata.xml into
+ * remote repositories and maven-metadata-&lt;repository&gt;.xml into local ones, so every file matching
+ * maven-metadata*.xml in a directory is handled.
+ * <p>
+ * A file is rewritten into a hidden file next to it which is then moved over it, like files uploaded
+ * with PUT, so readers never see a partial file. The checksum files it already has are rewritten too.
+ *
+ * @author Chery
+ * @date 2026/10/18 19:40
+ */
+public final class MavenMetadataFiles {
+
+    private static final String PREFIX = "maven-metadata";
+    private static final String SUFFIX = ".xml";
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final String[][] CHECKSUMS = {
+            {".sha1", "SHA-1"},
+            {".md5", "MD5"},
+            {".sha256", "SHA-256"},
+            {".sha512", "SHA-512"}
+    };
+
+    private MavenMetadataFiles() {
+    }
+
+    /**
+     * @return the maven-metadata files directly in the directory
+     */
+    public static List<File> list(final File dir) {
+        final File[] files = dir.listFiles(file -> isMetadataFile(file.getName()) && file.isFile());
+        return files == null ? Collections.emptyList() : Arrays.asList(files);
+    }
+
+    public static boolean isMetadataFile(final String fileName) {
+        return fileName.startsWith(PREFIX) && fileName.endsWith(SUFFIX);
+    }
+
+    public static Metadata read(final File file) throws IOException {
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            return new MetadataXpp3Reader().read(is,
+                                                 false);
+        } catch (XmlPullParserException e) {
+            throw new IOException("Invalid metadata file " + file + ": " + e.getMessage(),
+                                  e);
+        }
+    }
+
+    /**
+     * Replaces the file with the metadata and rewrites its checksum files.
+     */
+    public static void write(final Metadata metadata,
+                             final File file) throws IOException {
+        final Path tmp = RepositoryFiles.createPartFile(file);
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                new MetadataXpp3Writer().write(os,
+                                               metadata);
+            }
+            final byte[] content = Files.readAllBytes(tmp);
+            RepositoryFiles.publish(tmp,
+                                    file.toPath());
+            for (String[] checksum : CHECKSUMS) {
+                final File checksumFile = new File(file.getPath() + checksum[0]);
+                if (checksumFile.exists()) {
+                    writeChecksum(checksumFile,
+                                  checksum[1],
+                                  content);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Deletes the file and its checksum files.
+     */
+    public static void delete(final File file) throws IOException {
+        Files.deleteIfExists(file.toPath());
+        for (String[] checksum : CHECKSUMS) {
+            Files.deleteIfExists(new File(file.getPath() + checksum[0]).toPath());
+        }
+    }
+
+    /**
+     * Removes versions from the maven-metadata files of an artifact directory. Latest and release are moved
+     * to the last remaining versions and a file which lists no version anymore is deleted.
+     *
+     * @param artifactDir the artifact directory, ie., "org/kie/example"
+     * @param versions    the versions to remove
+     * @return the files which were rewritten or deleted
+     */
+    public static List<File> removeVersions(final File artifactDir,
+                                            final Collection<String> versions) throws IOException {
+        final List<File> changed = new ArrayList<>();
+        for (File file : list(artifactDir)) {
+            final Metadata metadata = read(file);
+            final Versioning versioning = metadata.getVersioning();
+            if (versioning == null || !versioning.getVersions().removeAll(versions)) {
+                continue;
+            }
+            if (versioning.getVersions().isEmpty()) {
+                delete(file);
+            } else {
+                updateLatestAndRelease(versioning);
+                versioning.updateTimestamp();
+                write(metadata,
+                      file);
+            }
+            changed.add(file);
+        }
+        return changed;
+    }
+
+    /**
+     * Removes the snapshot versions of a version directory's metadata file which point to removed builds.
+     *
+     * @param file   the maven-metadata file of a snapshot version directory
+     * @param values the removed snapshot versions, ie., "1.0-20181018.101010-3"
+     * @return true if the file was rewritten
+     */
+    public static boolean removeSnapshotVersions(final File file,
+                                                 final Collection<String> values) throws IOException {
+        final Metadata metadata = read(file);
+        final Versioning versioning = metadata.getVersioning();
+        if (versioning == null || !versioning.getSnapshotVersions().removeIf(snapshotVersion -> values.contains(snapshotVersion.getVersion()))) {
+            return false;
+        }
+        versioning.updateTimestamp();
+        write(metadata,
+              file);
+        return true;
+    }
+
+    private static void updateLatestAndRelease(final Versioning versioning) {
+        final List<String> versions = versioning.getVersions();
+        if (versioning.getLatest() != null && !versions.contains(versioning.getLatest())) {
+            versioning.setLatest(versions.get(versions.size() - 1));
+        }
+        if (versioning.getRelease() != null && !versions.contains(versioning.getRelease())) {
+            versioning.setRelease(null);
+            for (int i = versions.size() - 1; i >= 0; i--) {
+                if (!versions.get(i).endsWith(SNAPSHOT)) {
+                    versioning.setRelease(versions.get(i));
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void writeChecksum(final File checksumFile,
+                                      final String algorithm,
+                                      final byte[] content) throws IOException {
+        final String checksum;
+        try {
+            checksum = RepositoryFiles.toHex(MessageDigest.getInstance(algorithm).digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        final Path tmp = RepositoryFiles.createPartFile(checksumFile);
+        try {
+            Files.write(tmp,
+                        checksum.getBytes(StandardCharsets.US_ASCII));
+            RepositoryFiles.publish(tmp,
+                                    checksumFile.toPath());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.qchery.kbench.backend.props;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author Chery
  * @date 2018/8/25 21:33
@@ -20,6 +23,68 @@ public class ArtifactRepositoryProperties {
     private boolean distributionManagementM2RepoDirEnabled = false;
     private String workspaceName;
 
+    private String indexDir = "repositories/kie/index";
+
+    private boolean rebuildIndexOnStartup = false;
+
+    private int gavCacheSize = 10000;
+
+    private boolean compressedCacheEnabled = true;
+
+    private String compressedCacheDir = "repositories/kie/cache/gzip";
+
+    private long compressedCacheMaxFileSize = 16 * 1024 * 1024;
+
+    private boolean hotFileCacheEnabled = true;
+
+    private long hotFileCacheMaxSize = 32 * 1024 * 1024;
+
+    private long hotFileCacheMaxFileSize = 64 * 1024;
+
+    private long hotFileCacheTtl = 5 * 60 * 1000;
+
+    private int deployThreads = 4;
+
+    private long deployTimeout = 5 * 60 * 1000;
+
+    private Map<String, Long> deployTimeouts = new HashMap<>();
+
+    private boolean asyncDistributionManagementDeploy = false;
+
+    private int asyncDeployThreads = 2;
+
+    private long deploymentStatusRetention = 60 * 60 * 1000;
+
+    private boolean asyncUploadEnabled = false;
+
+    private int uploadThreads = 2;
+
+    private int uploadQueueCapacity = 16;
+
+    private int lockStripes = 1024;
+
+    private long lockTimeout = 60 * 1000;
+
+    private boolean streamingUploadEnabled = true;
+
+    private int jarMetadataCacheSize = 1000;
+
+    private long negativeLookupTtl = 60 * 1000;
+
+    private boolean snapshotRetentionEnabled = false;
+
+    private long snapshotRetentionInterval = 6 * 60 * 60 * 1000;
+
+    private int snapshotRetentionCount = 10;
+
+    private long snapshotRetentionMaxAge = 30L * 24 * 60 * 60 * 1000;
+
+    private int snapshotRetentionMaxFilesPerSecond = 200;
+
+    private boolean contentAddressableStorageEnabled = false;
+
+    private String contentAddressableStorageDir = "repositories/kie/cas";
+
     public String getGlobalM2RepoDir() {
         return globalM2RepoDir;
     }
@@ -59,4 +124,252 @@ public class ArtifactRepositoryProperties {
     public void setWorkspaceName(String workspaceName) {
         this.workspaceName = workspaceName;
     }
+
+    public String getIndexDir() {
+        return indexDir;
+    }
+
+    public void setIndexDir(String indexDir) {
+        this.indexDir = indexDir;
+    }
+
+    public boolean isRebuildIndexOnStartup() {
+        return rebuildIndexOnStartup;
+    }
+
+    public void setRebuildIndexOnStartup(boolean rebuildIndexOnStartup) {
+        this.rebuildIndexOnStartup = rebuildIndexOnStartup;
+    }
+
+    public int getGavCacheSize() {
+        return gavCacheSize;
+    }
+
+    public void setGavCacheSize(int gavCacheSize) {
+        this.gavCacheSize = gavCacheSize;
+    }
+
+    public boolean isCompressedCacheEnabled() {
+        return compressedCacheEnabled;
+    }
+
+    public void setCompressedCacheEnabled(boolean compressedCacheEnabled) {
+        this.compressedCacheEnabled = compressedCacheEnabled;
+    }
+
+    public String getCompressedCacheDir() {
+        return compressedCacheDir;
+    }
+
+    public void setCompressedCacheDir(String compressedCacheDir) {
+        this.compressedCacheDir = compressedCacheDir;
+    }
+
+    public long getCompressedCacheMaxFileSize() {
+        return compressedCacheMaxFileSize;
+    }
+
+    public void setCompressedCacheMaxFileSize(long compressedCacheMaxFileSize) {
+        this.compressedCacheMaxFileSize = compressedCacheMaxFileSize;
+    }
+
+    public boolean isHotFileCacheEnabled() {
+        return hotFileCacheEnabled;
+    }
+
+    public void setHotFileCacheEnabled(boolean hotFileCacheEnabled) {
+        this.hotFileCacheEnabled = hotFileCacheEnabled;
+    }
+
+    public long getHotFileCacheMaxSize() {
+        return hotFileCacheMaxSize;
+    }
+
+    public void setHotFileCacheMaxSize(long hotFileCacheMaxSize) {
+        this.hotFileCacheMaxSize = hotFileCacheMaxSize;
+    }
+
+    public long getHotFileCacheMaxFileSize() {
+        return hotFileCacheMaxFileSize;
+    }
+
+    public void setHotFileCacheMaxFileSize(long hotFileCacheMaxFileSize) {
+        this.hotFileCacheMaxFileSize = hotFileCacheMaxFileSize;
+    }
+
+    public long getHotFileCacheTtl() {
+        return hotFileCacheTtl;
+    }
+
+    public void setHotFileCacheTtl(long hotFileCacheTtl) {
+        this.hotFileCacheTtl = hotFileCacheTtl;
+    }
+
+    public int getDeployThreads() {
+        return deployThreads;
+    }
+
+    public void setDeployThreads(int deployThreads) {
+        this.deployThreads = deployThreads;
+    }
+
+    public long getDeployTimeout() {
+        return deployTimeout;
+    }
+
+    public void setDeployTimeout(long deployTimeout) {
+        this.deployTimeout = deployTimeout;
+    }
+
+    public Map<String, Long> getDeployTimeouts() {
+        return deployTimeouts;
+    }
+
+    public void setDeployTimeouts(Map<String, Long> deployTimeouts) {
+        this.deployTimeouts = deployTimeouts;
+    }
+
+    public boolean isAsyncDistributionManagementDeploy() {
+        return asyncDistributionManagementDeploy;
+    }
+
+    public void setAsyncDistributionManagementDeploy(boolean asyncDistributionManagementDeploy) {
+        this.asyncDistributionManagementDeploy = asyncDistributionManagementDeploy;
+    }
+
+    public int getAsyncDeployThreads() {
+        return asyncDeployThreads;
+    }
+
+    public void setAsyncDeployThreads(int asyncDeployThreads) {
+        this.asyncDeployThreads = asyncDeployThreads;
+    }
+
+    public long getDeploymentStatusRetention() {
+        return deploymentStatusRetention;
+    }
+
+    public void setDeploymentStatusRetention(long deploymentStatusRetention) {
+        this.deploymentStatusRetention = deploymentStatusRetention;
+    }
+
+    public boolean isAsyncUploadEnabled() {
+        return asyncUploadEnabled;
+    }
+
+    public void setAsyncUploadEnabled(boolean asyncUploadEnabled) {
+        this.asyncUploadEnabled = asyncUploadEnabled;
+    }
+
+    public int getUploadThreads() {
+        return uploadThreads;
+    }
+
+    public void setUploadThreads(int uploadThreads) {
+        this.uploadThreads = uploadThreads;
+    }
+
+    public int getUploadQueueCapacity() {
+        return uploadQueueCapacity;
+    }
+
+    public void setUploadQueueCapacity(int uploadQueueCapacity) {
+        this.uploadQueueCapacity = uploadQueueCapacity;
+    }
+
+    public int getLockStripes() {
+        return lockStripes;
+    }
+
+    public void setLockStripes(int lockStripes) {
+        this.lockStripes = lockStripes;
+    }
+
+    public long getLockTimeout() {
+        return lockTimeout;
+    }
+
+    public void setLockTimeout(long lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+
+    public boolean isStreamingUploadEnabled() {
+        return streamingUploadEnabled;
+    }
+
+    public void setStreamingUploadEnabled(boolean streamingUploadEnabled) {
+        this.streamingUploadEnabled = streamingUploadEnabled;
+    }
+
+    public int getJarMetadataCacheSize() {
+        return jarMetadataCacheSize;
+    }
+
+    public void setJarMetadataCacheSize(int jarMetadataCacheSize) {
+        this.jarMetadataCacheSize = jarMetadataCacheSize;
+    }
+
+    public long getNegativeLookupTtl() {
+        return negativeLookupTtl;
+    }
+
+    public void setNegativeLookupTtl(long negativeLookupTtl) {
+        this.negativeLookupTtl = negativeLookupTtl;
+    }
+
+    public boolean isSnapshotRetentionEnabled() {
+        return snapshotRetentionEnabled;
+    }
+
+    public void setSnapshotRetentionEnabled(boolean snapshotRetentionEnabled) {
+        this.snapshotRetentionEnabled = snapshotRetentionEnabled;
+    }
+
+    public long getSnapshotRetentionInterval() {
+        return snapshotRetentionInterval;
+    }
+
+    public void setSnapshotRetentionInterval(long snapshotRetentionInterval) {
+        this.snapshotRetentionInterval = snapshotRetentionInterval;
+    }
+
+    public int getSnapshotRetentionCount() {
+        return snapshotRetentionCount;
+    }
+
+    public void setSnapshotRetentionCount(int snapshotRetentionCount) {
+        this.snapshotRetentionCount = snapshotRetentionCount;
+    }
+
+    public long getSnapshotRetentionMaxAge() {
+        return snapshotRetentionMaxAge;
+    }
+
+    public void setSnapshotRetentionMaxAge(long snapshotRetentionMaxAge) {
+        this.snapshotRetentionMaxAge = snapshotRetentionMaxAge;
+    }
+
+    public int getSnapshotRetentionMaxFilesPerSecond() {
+        return snapshotRetentionMaxFilesPerSecond;
+    }
+
+    public void setSnapshotRetentionMaxFilesPerSecond(int snapshotRetentionMaxFilesPerSecond) {
+        this.snapshotRetentionMaxFilesPerSecond = snapshotRetentionMaxFilesPerSecond;
+    }
+
+    public boolean isContentAddressableStorageEnabled() {
+        return contentAddressableStorageEnabled;
+    }
+
+    public void setContentAddressableStorageEnabled(boolean contentAddressableStorageEnabled) {
+        this.contentAddressableStorageEnabled = contentAddressableStorageEnabled;
+    }
+
+    public String getContentAddressableStorageDir() {
+        return contentAddressableStorageDir;
+    }
+
+    public void setContentAddressableStorageDir(String contentAddressableStorageDir) {
+        this.contentAddressableStorageDir = contentAddressableStorageDir;
+    }
 }
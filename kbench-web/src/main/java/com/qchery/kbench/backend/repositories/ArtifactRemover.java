@@ -0,0 +1,135 @@
+package com.qchery.kbench.backend.repositories;
+
+import com.qchery.kbench.backend.metadata.MavenMetadataFiles;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOCase;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Deletes versions of an artifact from a repository in Maven layout: the version directories with all their
+ * files and checksums, the versions in the maven-metadata files of the artifact, and directories which are
+ * left empty, so walking the repository doesn't get slower with every deleted artifact.
+ *
+ * @author Chery
+ * @date 2026/10/18 19:45
+ */
+final class ArtifactRemover {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactRemover.class);
+
+    private ArtifactRemover() {
+    }
+
+    /**
+     * @param rootDir         the repository root dir
+     * @param groupId         the group id of the artifact
+     * @param artifactId      the artifact id
+     * @param versionWildcard wildcard the versions have to match, ie., "1.0.*", or null for every version
+     * @return the GAVs of the deleted versions
+     */
+    static List<GAV> remove(final File rootDir,
+                            final String groupId,
+                            final String artifactId,
+                            final String versionWildcard) {
+        final File artifactDir = getArtifactDir(rootDir,
+                                                groupId,
+                                                artifactId);
+        final List<GAV> deleted = new ArrayList<>();
+        final List<String> versions = new ArrayList<>();
+        long reclaimed = 0;
+        try {
+            for (File versionDir : listVersionDirs(artifactDir,
+                                                   artifactId)) {
+                final String version = versionDir.getName();
+                if (versionWildcard != null && !FilenameUtils.wildcardMatch(version,
+                                                                            versionWildcard,
+                                                                            IOCase.SENSITIVE)) {
+                    continue;
+                }
+                final long size = FileUtils.sizeOfDirectory(versionDir);
+                FileUtils.deleteDirectory(versionDir);
+                reclaimed += size;
+                versions.add(version);
+                deleted.add(new GAV(groupId,
+                                    artifactId,
+                                    version));
+            }
+            if (versions.isEmpty()) {
+                return deleted;
+            }
+
+            MavenMetadataFiles.removeVersions(artifactDir,
+                                              versions);
+            if (listVersionDirs(artifactDir,
+                                artifactId).isEmpty()) {
+                for (File metadataFile : MavenMetadataFiles.list(artifactDir)) {
+                    MavenMetadataFiles.delete(metadataFile);
+                }
+            }
+            deleteEmptyDirs(artifactDir,
+                            rootDir);
+        } catch (IOException e) {
+            throw new RuntimeException(String.format("Unable to delete %s:%s:%s from %s",
+                                                     groupId,
+                                                     artifactId,
+                                                     versionWildcard,
+                                                     rootDir),
+                                       e);
+        }
+
+        log.info("Deleted {}:{} versions {} from {}, reclaimed {} bytes",
+                 groupId,
+                 artifactId,
+                 versions,
+                 rootDir,
+                 reclaimed);
+        return deleted;
+    }
+
+    static File getArtifactDir(final File rootDir,
+                               final String groupId,
+                               final String artifactId) {
+        return new File(rootDir,
+                        groupId.replace('.',
+                                        File.separatorChar) + File.separator + artifactId);
+    }
+
+    /**
+     * Returns the subdirectories holding files of the artifact. Other subdirectories belong to artifacts whose
+     * group id continues with this artifact id, ie., "org/kie/kie/api" of org.kie.kie:api below org.kie:kie.
+     */
+    private static List<File> listVersionDirs(final File artifactDir,
+                                              final String artifactId) {
+        final File[] dirs = artifactDir.listFiles(File::isDirectory);
+        if (dirs == null) {
+            return Collections.emptyList();
+        }
+        final String prefix = artifactId + "-";
+        final List<File> versionDirs = new ArrayList<>();
+        for (File dir : dirs) {
+            final String[] files = dir.list((parent, name) -> name.startsWith(prefix));
+            if (files != null && files.length > 0) {
+                versionDirs.add(dir);
+            }
+        }
+        return versionDirs;
+    }
+
+    private static void deleteEmptyDirs(final File dir,
+                                        final File rootDir) {
+        final File root = rootDir.getAbsoluteFile();
+        File current = dir.getAbsoluteFile();
+        while (current != null && !current.equals(root) && current.delete()) {
+            current = current.getParentFile();
+        }
+    }
+}
@@ -64,11 +64,34 @@ public interface ArtifactRepository {
                 Artifact... artifacts);
 
     /**
-     * Delete an artifact from the repository
+     * Notify the repository that files below its root dir were written or removed without going
+     * through {@link #deploy(String, Artifact...)}, ie., by an HTTP PUT
+     * @param files the changed files or directories
+     */
+    void refresh(final File... files);
+
+    /**
+     * Rebuild any index the repository keeps of its content
+     */
+    void reindex();
+
+    /**
+     * Delete an artifact from the repository, with its checksums and its version in the maven-metadata files
      * @param gav the GAV identifier of the artifact to be deleted
      */
     void delete(final GAV gav);
 
+    /**
+     * Delete the versions of an artifact which match a wildcard
+     * @param groupId the group id of the artifact
+     * @param artifactId the artifact id
+     * @param versionWildcard wildcard the versions have to match, ie., "1.0.*", or null for every version
+     * @return the GAV identifiers of the deleted artifacts
+     */
+    Collection<GAV> delete(final String groupId,
+                           final String artifactId,
+                           final String versionWildcard);
+
     /**
      * Checks whether this Maven repository contains the specified artifact (GAV).
      * <p>
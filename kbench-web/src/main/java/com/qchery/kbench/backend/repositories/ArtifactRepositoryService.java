@@ -23,6 +23,7 @@ import org.springframework.stereotype.Service;
 import org.uberfire.apache.commons.io.FilenameUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -57,8 +58,19 @@ public class ArtifactRepositoryService {
         if (!this.repositoryProperties.isGlobalM2RepoDirEnabled()) {
             return new NullArtifactRepository();
         }
+        if (this.repositoryProperties.isContentAddressableStorageEnabled()) {
+            return new ContentAddressableArtifactRepository(GLOBAL_M2_REPO_NAME,
+                    this.getGlobalM2RepoDir(),
+                    this.getIndexFile(GLOBAL_M2_REPO_NAME),
+                    this.repositoryProperties.isRebuildIndexOnStartup(),
+                    this.repositoryProperties.getNegativeLookupTtl(),
+                    new File(FilenameUtils.separatorsToSystem(this.repositoryProperties.getContentAddressableStorageDir())));
+        }
         return new FileSystemArtifactRepository(GLOBAL_M2_REPO_NAME,
-                this.getGlobalM2RepoDir());
+                this.getGlobalM2RepoDir(),
+                this.getIndexFile(GLOBAL_M2_REPO_NAME),
+                this.repositoryProperties.isRebuildIndexOnStartup(),
+                this.repositoryProperties.getNegativeLookupTtl());
     }
 
     private ArtifactRepository produceDistributionManagementRepository() {
@@ -82,6 +94,12 @@ public class ArtifactRepositoryService {
         return repoDir;
     }
 
+    private File getIndexFile(final String repositoryName) {
+        final String indexDir = FilenameUtils.separatorsToSystem(repositoryProperties.getIndexDir());
+        return new File(indexDir,
+                repositoryName + ".idx");
+    }
+
     public List<? extends ArtifactRepository> getRepositories() {
         return this.repositories.stream().filter(ArtifactRepository::isRepository).collect(Collectors.toList());
     }
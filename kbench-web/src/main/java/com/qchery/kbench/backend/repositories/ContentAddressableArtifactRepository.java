@@ -0,0 +1,247 @@
+package com.qchery.kbench.backend.repositories;
+
+import com.qchery.kbench.backend.cas.BlobStore;
+import org.eclipse.aether.artifact.Artifact;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link FileSystemArtifactRepository} which keeps the content of its files in a {@link BlobStore}. The
+ * Maven layout stays as it is, but every artifact and checksum file is a hard link to the blob of its
+ * SHA-256, so a KJAR rebuilt without changes takes no space for its new version or snapshot build. Files are
+ * served from their Maven paths as before, without any lookup.
+ * <p>
+ * The maven-metadata files are left out, they differ for every artifact and are rewritten on every
+ * deployment. Aether writes deployed files in place, so the files a deployment may overwrite are detached
+ * from their blobs first. Blobs nothing links to anymore, after deletions or snapshot retention, are
+ * collected in the background.
+ * <p>
+ * Files which aren't interned yet, ie., those of a repository used without a blob store before, are interned
+ * on startup and by {@link #reindex()}.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:20
+ */
+public class ContentAddressableArtifactRepository extends FileSystemArtifactRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentAddressableArtifactRepository.class);
+
+    private static final String METADATA_PREFIX = "maven-metadata";
+
+    private final BlobStore blobStore;
+    private final ExecutorService collector = Executors.newSingleThreadExecutor(runnable -> {
+        final Thread thread = new Thread(runnable,
+                                         "kbench-cas-collector");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private final AtomicBoolean collectionPending = new AtomicBoolean();
+    // Deployments write detached files in place, interning all files must not link them meanwhile
+    private final ReadWriteLock conversion = new ReentrantReadWriteLock();
+
+    /**
+     * @param name              the repository name
+     * @param dir               the repository root dir
+     * @param indexFile         the file the repository index is persisted to, null to keep it in memory only
+     * @param rebuildIndex      true to walk the repository on startup even if a persisted index exists
+     * @param negativeLookupTtl how long in milliseconds an artifact which wasn't found is reported missing
+     *                          without asking Aether again
+     * @param blobDir           the dir of the blobs, on the same file system as the repository
+     */
+    public ContentAddressableArtifactRepository(final String name,
+                                                final String dir,
+                                                final File indexFile,
+                                                final boolean rebuildIndex,
+                                                final long negativeLookupTtl,
+                                                final File blobDir) {
+        super(name,
+              dir,
+              indexFile,
+              rebuildIndex,
+              negativeLookupTtl);
+        this.blobStore = new BlobStore(blobDir.toPath(),
+                                       new File(dir).toPath());
+        // The superclass built the index before there was a blob store, nothing is served before this is done
+        internAll();
+        scheduleCollection();
+    }
+
+    @Override
+    public void deploy(final String pom,
+                       final Artifact... artifacts) {
+        final Set<File> directories = getDeployedDirectories(artifacts);
+        conversion.readLock().lock();
+        try {
+            for (File directory : directories) {
+                forEachFile(directory,
+                            blobStore::detach);
+            }
+            try {
+                super.deploy(pom,
+                             artifacts);
+            } finally {
+                for (File directory : directories) {
+                    forEachFile(directory,
+                                this::internFile);
+                }
+                // Interned files carry the attributes of their blobs
+                super.refresh(directories.toArray(new File[directories.size()]));
+            }
+        } finally {
+            conversion.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void refresh(final File... files) {
+        for (File file : files) {
+            if (file.isFile()) {
+                intern(file.toPath());
+            } else {
+                // A directory or a missing file, content may have been removed below it
+                scheduleCollection();
+            }
+        }
+        super.refresh(files);
+    }
+
+    /**
+     * Also interns the files which aren't yet, ie., those of a repository which was used without a blob store
+     * before, and collects unreferenced blobs.
+     */
+    @Override
+    public void reindex() {
+        internAll();
+        super.reindex();
+        collectGarbage();
+    }
+
+    @Override
+    public Collection<GAV> delete(final String groupId,
+                                  final String artifactId,
+                                  final String versionWildcard) {
+        final Collection<GAV> deleted = super.delete(groupId,
+                                                     artifactId,
+                                                     versionWildcard);
+        if (!deleted.isEmpty()) {
+            scheduleCollection();
+        }
+        return deleted;
+    }
+
+    /**
+     * Interns every file of the index, which only reads the files which aren't interned yet. Deployments wait
+     * until it is done.
+     */
+    private void internAll() {
+        if (!blobStore.isAvailable()) {
+            return;
+        }
+        final long start = System.currentTimeMillis();
+        final List<File> replaced = new ArrayList<>();
+        conversion.writeLock().lock();
+        try {
+            for (File file : listFiles(Collections.singletonList("*"))) {
+                if (intern(file.toPath())) {
+                    replaced.add(file);
+                }
+            }
+        } finally {
+            conversion.writeLock().unlock();
+        }
+        if (!replaced.isEmpty()) {
+            // Their attributes are the ones of the blobs now
+            super.refresh(replaced.toArray(new File[replaced.size()]));
+            log.info("Replaced {} files of {} with links to identical content in {} ms",
+                     replaced.size(),
+                     getName(),
+                     System.currentTimeMillis() - start);
+        }
+    }
+
+    private boolean intern(final Path file) {
+        try {
+            return internFile(file);
+        } catch (IOException e) {
+            log.warn("Unable to intern {}: {}",
+                     file,
+                     e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean internFile(final Path file) throws IOException {
+        return !file.getFileName().toString().startsWith(METADATA_PREFIX) && blobStore.intern(file);
+    }
+
+    private void forEachFile(final File directory,
+                             final FileAction action) {
+        final File[] files = directory.listFiles(file -> file.isFile() && !file.getName().startsWith("."));
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            try {
+                action.apply(file.toPath());
+            } catch (IOException e) {
+                log.warn("Unable to update {} in the blob store: {}",
+                         file,
+                         e.getMessage());
+            }
+        }
+    }
+
+    private Set<File> getDeployedDirectories(final Artifact... artifacts) {
+        final Set<File> directories = new LinkedHashSet<>();
+        for (Artifact artifact : artifacts) {
+            final File artifactDir = ArtifactRemover.getArtifactDir(new File(getRootDir()),
+                                                                    artifact.getGroupId(),
+                                                                    artifact.getArtifactId());
+            directories.add(new File(artifactDir,
+                                     artifact.getBaseVersion()));
+            directories.add(artifactDir);
+        }
+        return directories;
+    }
+
+    private void scheduleCollection() {
+        if (blobStore.isAvailable() && collectionPending.compareAndSet(false,
+                                                                       true)) {
+            collector.execute(() -> {
+                collectionPending.set(false);
+                collectGarbage();
+            });
+        }
+    }
+
+    private void collectGarbage() {
+        try {
+            blobStore.collectGarbage();
+        } catch (IOException e) {
+            log.warn("Unable to collect unreferenced blobs: {}",
+                     e.getMessage());
+        }
+    }
+
+    private interface FileAction {
+
+        void apply(Path file) throws IOException;
+    }
+}
@@ -17,8 +17,12 @@
 
 package com.qchery.kbench.backend.repositories;
 
+import com.qchery.kbench.backend.io.RepositoryFiles;
 import org.apache.maven.model.DeploymentRepository;
 import org.apache.maven.model.DistributionManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
 import org.apache.maven.project.MavenProject;
 import org.apache.maven.project.ProjectBuildingException;
 import org.apache.maven.settings.Server;
@@ -28,6 +32,7 @@ import org.appformer.maven.integration.embedder.MavenEmbedder;
 import org.appformer.maven.integration.embedder.MavenEmbedderException;
 import org.appformer.maven.integration.embedder.MavenProjectLoader;
 import org.appformer.maven.integration.embedder.MavenSettings;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.deployment.DeployRequest;
 import org.eclipse.aether.deployment.DeploymentException;
@@ -42,17 +47,41 @@ import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringReader;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 
 public class DistributionManagementArtifactRepository implements ArtifactRepository {
 
+    private static final int MAX_IDLE_EMBEDDERS = 2;
+    private static final int MAX_CACHED_REPOSITORIES = 256;
+    private static final String SNAPSHOT = "-SNAPSHOT";
+
     private String name;
     private Logger logger = LoggerFactory.getLogger(DistributionManagementArtifactRepository.class);
 
+    private final Queue<MavenEmbedder> embedders = new ConcurrentLinkedQueue<>();
+    private final Map<String, Optional<RemoteRepository>> remoteRepositories = new LinkedHashMap<String, Optional<RemoteRepository>>(16,
+            0.75f,
+            true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Optional<RemoteRepository>> eldest) {
+            return size() > MAX_CACHED_REPOSITORIES;
+        }
+    };
+
     public DistributionManagementArtifactRepository() {
     }
 
@@ -103,46 +132,181 @@ public class DistributionManagementArtifactRepository implements ArtifactReposit
     @Override
     public void deploy(final String pom,
                        final Artifact... artifacts) {
+        if (pom == null) {
+            return;
+        }
         try {
 
-            MavenEmbedder embedder = MavenProjectLoader.newMavenEmbedder(false);
-            DistributionManagement distributionManagement = getDistributionManagement(pom,
-                    embedder);
+            final boolean isSnapshot = Arrays.stream(artifacts).anyMatch(artifact -> artifact.isSnapshot());
+            final RemoteRepository remoteRepository = getRemoteRepository(pom,
+                    isSnapshot);
 
-            if (distributionManagement != null) {
+            //If the user has configured a distribution management module in the pom then we will attempt to deploy there.
+            //If credentials are required those credentials must be provisioned in the user's settings.xml file
+            if (remoteRepository != null) {
+                DeployRequest remoteRequest = new DeployRequest();
 
-                final boolean isSnapshot = Arrays.stream(artifacts).anyMatch(artifact -> artifact.isSnapshot());
-                DeploymentRepository remoteRepository = null;
-                if (isSnapshot) {
-                    remoteRepository = distributionManagement.getSnapshotRepository();
+                for (Artifact artifact : artifacts) {
+                    remoteRequest.addArtifact(artifact);
+                }
+
+                remoteRequest.setRepository(remoteRepository);
+
+                Aether.getAether().getSystem().deploy(Aether.getAether().getSession(),
+                        remoteRequest);
+            }
+        } catch (DeploymentException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-                    //Maven documentation states use of the regular repository if the SNAPSHOT repository is undefined
-                    //See https://maven.apache.org/pom.html#Repository and https://bugzilla.redhat.com/show_bug.cgi?id=1129573
-                    if (remoteRepository == null) {
-                        remoteRepository = distributionManagement.getRepository();
-                    }
-                } else {
-                    remoteRepository = distributionManagement.getRepository();
+    /**
+     * Resolves the repository to deploy to. The POM is only built with the Maven embedder if the repository
+     * can't be read from the POM itself, and resolved repositories are cached by the content of the POM.
+     *
+     * @return the repository or null if the POM has no distribution management for the artifacts
+     */
+    private RemoteRepository getRemoteRepository(final String pomXML,
+                                                 final boolean isSnapshot) {
+        final Model model = readModel(pomXML);
+        final String key = getCacheKey(pomXML,
+                model,
+                isSnapshot);
+        if (key != null) {
+            synchronized (remoteRepositories) {
+                final Optional<RemoteRepository> cached = remoteRepositories.get(key);
+                if (cached != null) {
+                    return cached.orElse(null);
                 }
+            }
+        }
 
-                //If the user has configured a distribution management module in the pom then we will attempt to deploy there.
-                //If credentials are required those credentials must be provisioned in the user's settings.xml file
-                if (remoteRepository != null) {
-                    DeployRequest remoteRequest = new DeployRequest();
+        final Optional<DeploymentRepository> declared = model == null ? null : getDeclaredRepository(model,
+                isSnapshot);
+        final RemoteRepository remoteRepository;
+        if (declared == null) {
+            remoteRepository = withEmbedder(embedder -> {
+                final DeploymentRepository repository = selectRepository(getDistributionManagement(pomXML,
+                        embedder),
+                        isSnapshot);
+                return repository == null ? null : getRemoteRepoFromDeployment(repository,
+                        embedder);
+            });
+        } else if (declared.isPresent()) {
+            remoteRepository = getRemoteRepoFromDeployment(declared.get());
+        } else {
+            remoteRepository = null;
+        }
 
-                    for (Artifact artifact : artifacts) {
-                        remoteRequest.addArtifact(artifact);
-                    }
+        if (key != null) {
+            synchronized (remoteRepositories) {
+                remoteRepositories.put(key,
+                        Optional.ofNullable(remoteRepository));
+            }
+        }
+        return remoteRepository;
+    }
 
-                    remoteRequest.setRepository(getRemoteRepoFromDeployment(remoteRepository,
-                            embedder));
+    private static DeploymentRepository selectRepository(final DistributionManagement distributionManagement,
+                                                         final boolean isSnapshot) {
+        if (distributionManagement == null) {
+            return null;
+        }
+        if (isSnapshot) {
+            //Maven documentation states use of the regular repository if the SNAPSHOT repository is undefined
+            //See https://maven.apache.org/pom.html#Repository and https://bugzilla.redhat.com/show_bug.cgi?id=1129573
+            final DeploymentRepository snapshotRepository = distributionManagement.getSnapshotRepository();
+            return snapshotRepository != null ? snapshotRepository : distributionManagement.getRepository();
+        }
+        return distributionManagement.getRepository();
+    }
 
-                    Aether.getAether().getSystem().deploy(Aether.getAether().getSession(),
-                            remoteRequest);
-                }
+    /**
+     * Reads the repository to deploy to straight from the POM, which is only possible if nothing else can
+     * contribute to the effective distribution management, ie., a parent POM, a profile or a property.
+     *
+     * @return the declared repository, empty if the POM has none, or null if the POM has to be built
+     */
+    private static Optional<DeploymentRepository> getDeclaredRepository(final Model model,
+                                                                        final boolean isSnapshot) {
+        if (!model.getProfiles().isEmpty()) {
+            return null;
+        }
+        final boolean inherits = model.getParent() != null;
+        final DistributionManagement distributionManagement = model.getDistributionManagement();
+        DeploymentRepository repository = null;
+        if (distributionManagement != null) {
+            repository = isSnapshot ? distributionManagement.getSnapshotRepository() : distributionManagement.getRepository();
+            if (repository == null && isSnapshot && !inherits) {
+                repository = distributionManagement.getRepository();
+            }
+        }
+        if (repository == null) {
+            return inherits ? null : Optional.empty();
+        }
+        return isLiteral(repository.getId()) && isLiteral(repository.getUrl()) && isLiteral(repository.getLayout())
+                ? Optional.of(repository) : null;
+    }
+
+    private static boolean isLiteral(final String value) {
+        return value == null || !value.contains("${");
+    }
+
+    private static Model readModel(final String pomXML) {
+        try {
+            return new MavenXpp3Reader().read(new StringReader(pomXML),
+                    false);
+        } catch (IOException | XmlPullParserException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the key of the POM in the repository cache or null if the result may not be cached, which is
+     * the case for POMs that can't be read and POMs with a SNAPSHOT parent, as the parent may change
+     */
+    private static String getCacheKey(final String pomXML,
+                                      final Model model,
+                                      final boolean isSnapshot) {
+        if (model == null) {
+            return null;
+        }
+        final Parent parent = model.getParent();
+        if (parent != null && (parent.getVersion() == null || parent.getVersion().endsWith(SNAPSHOT))) {
+            return null;
+        }
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(pomXML.getBytes(StandardCharsets.UTF_8));
+            final StringBuilder sb = new StringBuilder(RepositoryFiles.toHex(digest));
+            if (parent != null) {
+                sb.append(':').append(parent.getId());
+            }
+            return sb.append(isSnapshot ? ":snapshot" : ":release").toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the action with an embedder from the pool. Creating an embedder boots a Plexus container and
+     * parses the Maven settings, so they are reused. An embedder which failed is disposed instead.
+     */
+    private <T> T withEmbedder(final Function<MavenEmbedder, T> action) {
+        MavenEmbedder embedder = embedders.poll();
+        if (embedder == null) {
+            embedder = MavenProjectLoader.newMavenEmbedder(false);
+        }
+        boolean reusable = false;
+        try {
+            final T result = action.apply(embedder);
+            reusable = true;
+            return result;
+        } finally {
+            if (reusable && embedders.size() < MAX_IDLE_EMBEDDERS) {
+                embedders.offer(embedder);
+            } else {
+                embedder.dispose();
             }
-        } catch (DeploymentException e) {
-            throw new RuntimeException(e);
         }
     }
 
@@ -165,6 +329,15 @@ public class DistributionManagementArtifactRepository implements ArtifactReposit
         return project.getDistributionManagement();
     }
 
+    private RemoteRepository getRemoteRepoFromDeployment(final DeploymentRepository repo) {
+        if (MavenSettings.getSettings().getServer(repo.getId()) == null) {
+            return getRemoteRepoFromDeployment(repo,
+                    null);
+        }
+        return withEmbedder(embedder -> getRemoteRepoFromDeployment(repo,
+                embedder));
+    }
+
     private RemoteRepository getRemoteRepoFromDeployment(final DeploymentRepository repo,
                                                          final MavenEmbedder embedder) {
         RemoteRepository.Builder remoteRepoBuilder = new RemoteRepository.Builder(repo.getId(),
@@ -189,8 +362,29 @@ public class DistributionManagementArtifactRepository implements ArtifactReposit
         return remoteRepoBuilder.build();
     }
 
+    @Override
+    public void refresh(final File... files) {
+
+    }
+
+    @Override
+    public void reindex() {
+
+    }
+
+    /**
+     * Artifacts deployed to distribution management repositories belong to those repositories, Aether
+     * has no means to delete them.
+     */
     @Override
     public void delete(final GAV gav) {
 
     }
+
+    @Override
+    public Collection<GAV> delete(final String groupId,
+                                  final String artifactId,
+                                  final String versionWildcard) {
+        return Collections.emptyList();
+    }
 }
@@ -18,15 +18,15 @@
 package com.qchery.kbench.backend.repositories;
 
 import com.qchery.kbench.backend.ArtifactImpl;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOCase;
-import org.apache.commons.io.filefilter.DirectoryFileFilter;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
+import com.qchery.kbench.backend.index.ArtifactIndex;
+import com.qchery.kbench.backend.index.ArtifactIndexEntry;
 import org.appformer.maven.integration.Aether;
+import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
 import org.eclipse.aether.deployment.DeployRequest;
 import org.eclipse.aether.deployment.DeploymentException;
+import org.eclipse.aether.repository.LocalArtifactRequest;
 import org.eclipse.aether.repository.RemoteRepository;
 import org.eclipse.aether.repository.RepositoryPolicy;
 import org.eclipse.aether.resolution.ArtifactRequest;
@@ -39,25 +39,59 @@ import org.uberfire.apache.commons.io.FilenameUtils;
 
 import java.io.File;
 import java.net.MalformedURLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class FileSystemArtifactRepository implements ArtifactRepository {
 
+    private static final long DEFAULT_NEGATIVE_LOOKUP_TTL = 60 * 1000;
+    private static final int MAX_NEGATIVE_LOOKUPS = 10000;
+
     private String name;
     private Logger logger = LoggerFactory.getLogger(FileSystemArtifactRepository.class);
 
     private RemoteRepository repository;
     private String repositoryDirectory;
+    private ArtifactIndex index;
+    private long negativeLookupTtl = DEFAULT_NEGATIVE_LOOKUP_TTL;
+    // Version dirs Aether didn't find an artifact in, with the time the result expires
+    private final Map<String, Long> negativeLookups = new ConcurrentHashMap<>();
 
     public FileSystemArtifactRepository() {
     }
 
     public FileSystemArtifactRepository(final String name,
                                         final String dir) {
+        this(name,
+             dir,
+             null,
+             false,
+             DEFAULT_NEGATIVE_LOOKUP_TTL);
+    }
+
+    /**
+     * @param name         the repository name
+     * @param dir          the repository root dir
+     * @param indexFile    the file the repository index is persisted to, null to keep it in memory only
+     * @param rebuildIndex true to walk the repository on startup even if a persisted index exists
+     * @param negativeLookupTtl how long in milliseconds an artifact which wasn't found is reported missing
+     *                          without asking Aether again
+     */
+    public FileSystemArtifactRepository(final String name,
+                                        final String dir,
+                                        final File indexFile,
+                                        final boolean rebuildIndex,
+                                        final long negativeLookupTtl) {
         this.name = name;
+        this.negativeLookupTtl = negativeLookupTtl;
         final String m2RepoDir = FilenameUtils.normalize(dir.trim() + File.separatorChar);
         logger.info("Maven Repository root set to: " + m2RepoDir);
 
@@ -70,6 +104,11 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
         this.repositoryDirectory = dir;
         this.repository = this.createRepository(dir);
         Aether.getAether().getRepositories().add(this.getRepository());
+
+        this.index = new ArtifactIndex(name,
+                                       dir,
+                                       indexFile);
+        this.index.open(rebuildIndex);
     }
 
     @Override
@@ -84,28 +123,88 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
 
     @Override
     public Collection<File> listFiles(final List<String> wildcards) {
-        return FileUtils.listFiles(new File(this.getRepositoryDirectory()),
-                                   new WildcardFileFilter(wildcards,
-                                                          IOCase.INSENSITIVE),
-                                   DirectoryFileFilter.DIRECTORY);
+        return this.index.find(wildcards)
+                .stream()
+                .map(entry -> entry.getFile(this.getRepositoryDirectory()))
+                .collect(Collectors.toList());
     }
 
     @Override
     public Collection<Artifact> listArtifacts(final List<String> wildcards) {
-        final Collection<File> files = this.listFiles(wildcards);
+        final Collection<ArtifactIndexEntry> entries = this.index.find(wildcards);
 
-        return files.stream().map(file -> {
+        return entries.stream().map(entry -> {
             final HashMap<String, String> map = new HashMap<String, String>();
             map.put("repository",
                     this.getName());
-            final ArtifactImpl artifact = new ArtifactImpl(file);
+            map.put("size",
+                    String.valueOf(entry.getSize()));
+            map.put("lastModified",
+                    String.valueOf(entry.getLastModified()));
+            final ArtifactImpl artifact = new ArtifactImpl(entry.getFile(this.getRepositoryDirectory()),
+                                                           entry.getGroupId(),
+                                                           entry.getArtifactId(),
+                                                           entry.getVersion(),
+                                                           entry.getExtension());
             artifact.setProperties(map);
             return artifact;
         }).collect(Collectors.toList());
     }
 
+    /**
+     * Answers from the index where it can: a version dir which never held a file is missing, unless the
+     * local Maven repository has the artifact, and one holding its main JAR exists. Only the rest, ie., a
+     * version dir whose JAR was removed, holding other files only or a false positive of the index filter, is
+     * resolved with Aether, and artifacts it can't find are remembered for a while.
+     */
     @Override
     public boolean containsArtifact(final GAV gav) {
+        final String versionDir = gav.getGroupId().replace('.',
+                                                           '/') + "/" + gav.getArtifactId() + "/" + gav.getVersion();
+        if (!this.index.mightContainFilesIn(versionDir)) {
+            // Aether resolves from the local Maven repository first, which the index doesn't cover
+            return isInLocalRepository(gav);
+        }
+        if (this.index.containsJarIn(versionDir,
+                                     gav.getArtifactId(),
+                                     gav.getVersion())) {
+            return true;
+        }
+
+        final Long expires = negativeLookups.get(versionDir);
+        if (expires != null && expires > System.currentTimeMillis()) {
+            return false;
+        }
+        final boolean found = resolveArtifact(gav);
+        if (found) {
+            negativeLookups.remove(versionDir);
+        } else {
+            if (negativeLookups.size() >= MAX_NEGATIVE_LOOKUPS) {
+                final long now = System.currentTimeMillis();
+                negativeLookups.values().removeIf(expiry -> expiry <= now);
+            }
+            if (negativeLookups.size() < MAX_NEGATIVE_LOOKUPS) {
+                negativeLookups.put(versionDir,
+                                    System.currentTimeMillis() + negativeLookupTtl);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks the artifact up in the local Maven repository only, the way Aether does before it turns to this
+     * repository, which is a single file lookup.
+     */
+    private boolean isInLocalRepository(final GAV gav) {
+        final RepositorySystemSession session = Aether.getAether().getSession();
+        final LocalArtifactRequest request = new LocalArtifactRequest(createArtifactRequest(gav).getArtifact(),
+                                                                      Collections.singletonList(this.getRepository()),
+                                                                      null);
+        return session.getLocalRepositoryManager().find(session,
+                                                        request).isAvailable();
+    }
+
+    private boolean resolveArtifact(final GAV gav) {
         ArtifactRequest request = createArtifactRequest(gav);
         try {
             Aether aether = Aether.getAether();
@@ -173,12 +272,71 @@ public class FileSystemArtifactRepository implements ArtifactRepository {
                                                   deployRequest);
         } catch (DeploymentException e) {
             throw new RuntimeException(e);
+        } finally {
+            refreshDeployedDirectories(artifacts);
         }
     }
 
+    @Override
+    public void refresh(final File... files) {
+        this.index.refresh(files);
+        this.negativeLookups.clear();
+    }
+
+    @Override
+    public void reindex() {
+        this.index.rebuild();
+        this.negativeLookups.clear();
+    }
+
     @Override
     public void delete(final GAV gav) {
+        delete(gav.getGroupId(),
+               gav.getArtifactId(),
+               gav.getVersion());
+    }
 
+    @Override
+    public Collection<GAV> delete(final String groupId,
+                                  final String artifactId,
+                                  final String versionWildcard) {
+        final File artifactDir = ArtifactRemover.getArtifactDir(new File(this.getRepositoryDirectory()),
+                                                                groupId,
+                                                                artifactId);
+        final List<GAV> deleted = ArtifactRemover.remove(new File(this.getRepositoryDirectory()),
+                                                         groupId,
+                                                         artifactId,
+                                                         versionWildcard);
+        if (!deleted.isEmpty()) {
+            final List<File> directories = new ArrayList<>();
+            for (GAV gav : deleted) {
+                directories.add(new File(artifactDir,
+                                         gav.getVersion()));
+            }
+            directories.add(artifactDir);
+            this.index.refresh(directories.toArray(new File[directories.size()]));
+            this.negativeLookups.clear();
+        }
+        return deleted;
+    }
+
+    /**
+     * Re-reads the version directories of the deployed artifacts and their artifact directories,
+     * which hold the maven-metadata.xml written by Aether.
+     */
+    private void refreshDeployedDirectories(final Artifact... artifacts) {
+        final Set<File> directories = new LinkedHashSet<>();
+        for (Artifact artifact : artifacts) {
+            final File artifactDir = new File(this.getRepositoryDirectory(),
+                                              artifact.getGroupId().replace('.',
+                                                                            File.separatorChar)
+                                                      + File.separator + artifact.getArtifactId());
+            directories.add(new File(artifactDir,
+                                     artifact.getBaseVersion()));
+            directories.add(artifactDir);
+        }
+        this.index.refresh(directories.toArray(new File[directories.size()]));
+        this.negativeLookups.clear();
     }
 
     private ArtifactRequest createArtifactRequest(final GAV gav) {
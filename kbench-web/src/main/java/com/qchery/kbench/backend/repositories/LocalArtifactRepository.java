@@ -102,8 +102,30 @@ public class LocalArtifactRepository implements ArtifactRepository {
         }
     }
 
+    @Override
+    public void refresh(final File... files) {
+
+    }
+
+    @Override
+    public void reindex() {
+
+    }
+
     @Override
     public void delete(final GAV gav) {
+        delete(gav.getGroupId(),
+               gav.getArtifactId(),
+               gav.getVersion());
+    }
 
+    @Override
+    public Collection<GAV> delete(final String groupId,
+                                  final String artifactId,
+                                  final String versionWildcard) {
+        return ArtifactRemover.remove(new File(getRootDir()),
+                                      groupId,
+                                      artifactId,
+                                      versionWildcard);
     }
 }
@@ -55,11 +55,28 @@ public class NullArtifactRepository implements ArtifactRepository {
 
     }
 
+    @Override
+    public void refresh(File... files) {
+
+    }
+
+    @Override
+    public void reindex() {
+
+    }
+
     @Override
     public void delete(GAV gav) {
 
     }
 
+    @Override
+    public Collection<GAV> delete(String groupId,
+                                  String artifactId,
+                                  String versionWildcard) {
+        return Collections.emptyList();
+    }
+
     @Override
     public boolean containsArtifact(GAV gav) {
         return false;
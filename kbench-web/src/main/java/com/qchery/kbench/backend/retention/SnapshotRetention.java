@@ -0,0 +1,399 @@
+package com.qchery.kbench.backend.retention;
+
+import com.qchery.kbench.backend.GuvnorM2Repository;
+import com.qchery.kbench.backend.cache.CompressedContentCache;
+import com.qchery.kbench.backend.lock.RepositoryLocks;
+import com.qchery.kbench.backend.metadata.MavenMetadataFiles;
+import com.qchery.kbench.backend.props.ArtifactRepositoryProperties;
+import com.qchery.kbench.backend.repositories.ArtifactRepository;
+import com.qchery.kbench.backend.repositories.ArtifactRepositoryService;
+import org.guvnor.common.services.project.model.GAV;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.qchery.kbench.backend.repositories.ArtifactRepositoryService.GLOBAL_M2_REPO_NAME;
+
+/**
+ * Removes old timestamped builds of snapshot versions from the global repository, which gains one with every
+ * deployment of a SNAPSHOT version. Per snapshot version the latest builds up to the configured count are
+ * kept and so is every build younger than the configured age. Snapshot versions of the maven-metadata.xml
+ * which point to removed builds are dropped from it.
+ * <p>
+ * Snapshot version directories are found through the repository index, not by walking the repository. The
+ * job runs on a single background thread with a fixed delay and deletes at most the configured number of
+ * files per second, so it doesn't compete with serving the repository. The files of a build are deleted under
+ * the lock of its GAV. The bytes reclaimed are logged and exported over JMX.
+ *
+ * @author Chery
+ * @date 2026/10/18 20:00
+ */
+@Component
+@ManagedResource(objectName = "com.qchery.kbench:type=SnapshotRetention", description = "Snapshot retention")
+public class SnapshotRetention {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotRetention.class);
+
+    private static final String SNAPSHOT = "-SNAPSHOT";
+    private static final String METADATA_FILE = "maven-metadata.xml";
+    private static final Pattern BUILD = Pattern.compile("(\\d{8}\\.\\d{6})-(\\d+)");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd.HHmmss");
+
+    @Autowired
+    private ArtifactRepositoryService artifactRepositoryService;
+
+    @Autowired
+    private GuvnorM2Repository m2Repository;
+
+    @Autowired
+    private RepositoryLocks repositoryLocks;
+
+    @Autowired
+    private CompressedContentCache compressedContentCache;
+
+    @Autowired
+    private ArtifactRepositoryProperties repositoryProperties;
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong totalReclaimedBytes = new AtomicLong();
+    private volatile long lastRun;
+    private volatile long lastRunMillis;
+    private volatile long lastRemovedBuilds;
+    private volatile long lastRemovedFiles;
+    private volatile long lastReclaimedBytes;
+
+    @PostConstruct
+    public void init() {
+        if (!repositoryProperties.isSnapshotRetentionEnabled()) {
+            return;
+        }
+        final long interval = repositoryProperties.getSnapshotRetentionInterval();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable,
+                                             "kbench-snapshot-retention");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+                                             try {
+                                                 run();
+                                             } catch (RuntimeException e) {
+                                                 log.error("Snapshot retention failed",
+                                                           e);
+                                             }
+                                         },
+                                         interval,
+                                         interval,
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Applies the retention to every snapshot version of the global repository.
+     *
+     * @return a summary of what was removed
+     */
+    @ManagedOperation(description = "Removes the snapshot builds beyond the retention now")
+    public String run() {
+        if (!running.compareAndSet(false,
+                                   true)) {
+            return "Snapshot retention is already running";
+        }
+        try {
+            final long start = System.currentTimeMillis();
+            final Run run = new Run(Math.max(1,
+                                             repositoryProperties.getSnapshotRetentionCount()),
+                                    start - repositoryProperties.getSnapshotRetentionMaxAge(),
+                                    new TokenBucket(Math.max(1,
+                                                             repositoryProperties.getSnapshotRetentionMaxFilesPerSecond())));
+            for (ArtifactRepository repository : artifactRepositoryService.getRepositories()) {
+                if (!GLOBAL_M2_REPO_NAME.equals(repository.getName()) || repository.getRootDir() == null) {
+                    continue;
+                }
+                final Path rootDir = new File(repository.getRootDir()).toPath().toAbsolutePath().normalize();
+                for (File metadataFile : repository.listFiles(Collections.singletonList(METADATA_FILE))) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
+                    final File versionDir = metadataFile.getParentFile();
+                    if (versionDir.getName().endsWith(SNAPSHOT)) {
+                        clean(repository.getName(),
+                              rootDir,
+                              versionDir,
+                              run);
+                    }
+                }
+            }
+
+            lastRun = start;
+            lastRunMillis = System.currentTimeMillis() - start;
+            lastRemovedBuilds = run.removedBuilds;
+            lastRemovedFiles = run.removedFiles;
+            lastReclaimedBytes = run.reclaimedBytes;
+            totalReclaimedBytes.addAndGet(run.reclaimedBytes);
+            final String summary = String.format("Removed %d snapshot builds with %d files, reclaimed %d bytes in %d ms",
+                                                 run.removedBuilds,
+                                                 run.removedFiles,
+                                                 run.reclaimedBytes,
+                                                 lastRunMillis);
+            log.info(summary);
+            return summary;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void clean(final String repositoryName,
+                       final Path rootDir,
+                       final File versionDir,
+                       final Run run) {
+        final File artifactDir = versionDir.getParentFile();
+        final String artifactId = artifactDir.getName();
+        final String version = versionDir.getName();
+        final String baseVersion = version.substring(0,
+                                                     version.length() - SNAPSHOT.length());
+        final String prefix = artifactId + "-" + baseVersion + "-";
+
+        final File[] files = versionDir.listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        // Latest build first
+        final TreeMap<String, Build> builds = new TreeMap<>(Collections.reverseOrder());
+        for (File file : files) {
+            final String name = file.getName();
+            if (!name.startsWith(prefix)) {
+                continue;
+            }
+            final Matcher matcher = BUILD.matcher(name).region(prefix.length(),
+                                                               name.length());
+            if (matcher.lookingAt()) {
+                builds.computeIfAbsent(String.format("%s-%010d",
+                                                     matcher.group(1),
+                                                     Long.parseLong(matcher.group(2))),
+                                       key -> new Build(matcher.group(1),
+                                                        matcher.group()))
+                        .files.add(file);
+            }
+        }
+        if (builds.size() <= run.count) {
+            return;
+        }
+
+        final List<Build> removed = new ArrayList<>();
+        int index = 0;
+        for (Build build : builds.values()) {
+            if (index++ >= run.count && build.timestamp() < run.cutoff) {
+                removed.add(build);
+            }
+        }
+        if (removed.isEmpty()) {
+            return;
+        }
+
+        final Path relativeVersionDir = rootDir.relativize(versionDir.toPath().toAbsolutePath().normalize());
+        if (relativeVersionDir.getNameCount() < 3) {
+            return;
+        }
+        final Path relativeGroupDir = relativeVersionDir.getParent().getParent();
+        final GAV gav = new GAV(relativeGroupDir.toString().replace(File.separatorChar,
+                                                                     '.'),
+                                artifactId,
+                                version);
+        final List<String> removedVersions = new ArrayList<>();
+        try {
+            for (Build build : removed) {
+                // Waiting for the I/O budget happens before the lock is taken
+                run.limiter.acquire(build.files.size());
+                final RepositoryLocks.Held held = repositoryLocks.lockGav(gav);
+                try {
+                    for (File file : build.files) {
+                        final long size = file.length();
+                        if (Files.deleteIfExists(file.toPath())) {
+                            run.removedFiles++;
+                            run.reclaimedBytes += size;
+                        }
+                    }
+                } finally {
+                    held.close();
+                }
+                run.removedBuilds++;
+                removedVersions.add(baseVersion + "-" + build.id);
+            }
+            final RepositoryLocks.Held held = repositoryLocks.lockGav(gav);
+            try {
+                MavenMetadataFiles.removeSnapshotVersions(new File(versionDir,
+                                                                   METADATA_FILE),
+                                                          removedVersions);
+            } finally {
+                held.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to apply the snapshot retention to {}: {}",
+                     gav,
+                     e.getMessage());
+        } finally {
+            if (!removedVersions.isEmpty()) {
+                m2Repository.refresh(repositoryName,
+                                     versionDir);
+                compressedContentCache.invalidate(repositoryName,
+                                                  relativeVersionDir.toString());
+                log.debug("Removed snapshot builds {} of {}",
+                          removedVersions,
+                          gav);
+            }
+        }
+    }
+
+    @ManagedAttribute(description = "Start of the last run in milliseconds since the epoch")
+    public long getLastRun() {
+        return lastRun;
+    }
+
+    @ManagedAttribute(description = "Duration of the last run in milliseconds")
+    public long getLastRunMillis() {
+        return lastRunMillis;
+    }
+
+    @ManagedAttribute(description = "Number of snapshot builds removed by the last run")
+    public long getLastRemovedBuilds() {
+        return lastRemovedBuilds;
+    }
+
+    @ManagedAttribute(description = "Number of files removed by the last run")
+    public long getLastRemovedFiles() {
+        return lastRemovedFiles;
+    }
+
+    @ManagedAttribute(description = "Bytes reclaimed by the last run")
+    public long getLastReclaimedBytes() {
+        return lastReclaimedBytes;
+    }
+
+    @ManagedAttribute(description = "Bytes reclaimed by all runs")
+    public long getTotalReclaimedBytes() {
+        return totalReclaimedBytes.get();
+    }
+
+    /**
+     * The limits and the results of one run.
+     */
+    private static class Run {
+
+        private final int count;
+        private final long cutoff;
+        private final TokenBucket limiter;
+        private long removedBuilds;
+        private long removedFiles;
+        private long reclaimedBytes;
+
+        private Run(final int count,
+                    final long cutoff,
+                    final TokenBucket limiter) {
+            this.count = count;
+            this.cutoff = cutoff;
+            this.limiter = limiter;
+        }
+    }
+
+    /**
+     * Limits the files deleted per second. It holds up to a second worth of permits, a request for more
+     * than there are is granted and paid for by waiting until the bucket would have refilled. Only the
+     * retention thread of a run uses it.
+     */
+    private static class TokenBucket {
+
+        private final double permitsPerNano;
+        private final double capacity;
+        private double permits;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(final int permitsPerSecond) {
+            this.permitsPerNano = permitsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+            this.capacity = permitsPerSecond;
+            this.permits = permitsPerSecond;
+        }
+
+        /**
+         * Takes the permits, waiting as long as the bucket is in debt afterwards. An interrupt ends the
+         * wait and is left to the caller.
+         */
+        private void acquire(final int count) {
+            final long now = System.nanoTime();
+            permits = Math.min(capacity,
+                               permits + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+            permits -= count;
+            if (permits < 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep((long) (-permits / permitsPerNano));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * The files of one timestamped build, ie., "1.0-20181018.101010-3".
+     */
+    private static class Build {
+
+        private final String time;
+        private final String id;
+        private final List<File> files = new ArrayList<>();
+
+        private Build(final String time,
+                      final String id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        /**
+         * @return the build time in milliseconds since the epoch, Maven writes it in UTC
+         */
+        private long timestamp() {
+            try {
+                return LocalDateTime.parse(time,
+                                           TIMESTAMP).toInstant(ZoneOffset.UTC).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return Long.MAX_VALUE;
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.qchery.kbench.backend.zip;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads the Maven metadata of a JAR from its central directory alone. The tail of the file and the central
+ * directory are memory-mapped and entry names are compared as bytes, so only the names under META-INF/maven
+ * are decoded and only the pom.xml and pom.properties entries are read and inflated, however many entries
+ * the JAR has.
+ * <p>
+ * ZIP64 archives, archives with data in front of them and encrypted entries are not supported; for those
+ * {@link #readMavenMetadata(File)} returns null and the caller falls back to {@link java.util.zip.ZipFile}.
+ *
+ * @author Chery
+ * @date 2026/10/18 18:40
+ */
+final class CentralDirectoryReader {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int LOCAL_HEADER_SIZE = 30;
+    private static final int CENTRAL_HEADER_SIZE = 46;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int ENCRYPTED_FLAG = 0x0001;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+    private static final int MAX_METADATA_SIZE = 16 * 1024 * 1024;
+
+    private static final byte[] MAVEN_DIR = MavenJarMetadata.MAVEN_DIR.getBytes(StandardCharsets.US_ASCII);
+
+    private CentralDirectoryReader() {
+    }
+
+    /**
+     * @return the metadata or null if the file is not a ZIP file this can read
+     */
+    static MavenJarMetadata readMavenMetadata(final File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(),
+                                                    StandardOpenOption.READ)) {
+            final long length = channel.size();
+            if (length < EOCD_SIZE) {
+                return null;
+            }
+
+            final int tailLength = (int) Math.min(length,
+                                                  EOCD_SIZE + MAX_COMMENT_SIZE);
+            final MappedByteBuffer tail = map(channel,
+                                              length - tailLength,
+                                              tailLength);
+            final int eocd = findEndOfCentralDirectory(tail);
+            if (eocd < 0) {
+                return null;
+            }
+
+            final int entries = tail.getShort(eocd + 10) & 0xFFFF;
+            final long centralDirectorySize = tail.getInt(eocd + 12) & ZIP64_MARKER;
+            final long centralDirectoryOffset = tail.getInt(eocd + 16) & ZIP64_MARKER;
+            if (entries == 0xFFFF
+                    || centralDirectoryOffset == ZIP64_MARKER
+                    || centralDirectorySize > Integer.MAX_VALUE
+                    || centralDirectoryOffset + centralDirectorySize != length - tailLength + eocd) {
+                return null;
+            }
+
+            final MappedByteBuffer centralDirectory = map(channel,
+                                                          centralDirectoryOffset,
+                                                          (int) centralDirectorySize);
+            String pomXml = null;
+            String pomProperties = null;
+            int position = 0;
+            for (int i = 0; i < entries && (pomXml == null || pomProperties == null); i++) {
+                if (position + CENTRAL_HEADER_SIZE > centralDirectory.limit()
+                        || centralDirectory.getInt(position) != CENTRAL_HEADER_SIGNATURE) {
+                    return null;
+                }
+                final int nameLength = centralDirectory.getShort(position + 28) & 0xFFFF;
+                final int extraLength = centralDirectory.getShort(position + 30) & 0xFFFF;
+                final int commentLength = centralDirectory.getShort(position + 32) & 0xFFFF;
+                final int namePosition = position + CENTRAL_HEADER_SIZE;
+
+                if (startsWith(centralDirectory,
+                               namePosition,
+                               nameLength,
+                               MAVEN_DIR)) {
+                    final int flags = centralDirectory.getShort(position + 8) & 0xFFFF;
+                    final String name = decode(centralDirectory,
+                                               namePosition,
+                                               nameLength,
+                                               (flags & UTF8_FLAG) != 0 ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+                    final boolean isPomXml = pomXml == null && MavenJarMetadata.isPomXml(name);
+                    final boolean isPomProperties = pomProperties == null && MavenJarMetadata.isPomProperties(name);
+                    if (isPomXml || isPomProperties) {
+                        if ((flags & ENCRYPTED_FLAG) != 0) {
+                            return null;
+                        }
+                        final String content = new String(readEntry(channel,
+                                                                    centralDirectory,
+                                                                    position,
+                                                                    name),
+                                                          StandardCharsets.UTF_8);
+                        if (isPomXml) {
+                            pomXml = content;
+                        } else {
+                            pomProperties = content;
+                        }
+                    }
+                }
+                position = namePosition + nameLength + extraLength + commentLength;
+            }
+            return new MavenJarMetadata(pomXml,
+                                        pomProperties);
+        }
+    }
+
+    private static byte[] readEntry(final FileChannel channel,
+                                    final ByteBuffer centralDirectory,
+                                    final int header,
+                                    final String name) throws IOException {
+        final int method = centralDirectory.getShort(header + 10) & 0xFFFF;
+        final long crc = centralDirectory.getInt(header + 16) & ZIP64_MARKER;
+        final long compressedSize = centralDirectory.getInt(header + 20) & ZIP64_MARKER;
+        final long size = centralDirectory.getInt(header + 24) & ZIP64_MARKER;
+        final long localHeaderOffset = centralDirectory.getInt(header + 42) & ZIP64_MARKER;
+        if (compressedSize > MAX_METADATA_SIZE || size > MAX_METADATA_SIZE) {
+            throw new ZipException("Entry " + name + " is too large");
+        }
+
+        // The local header may have a different extra field than the central one
+        final ByteBuffer localHeader = read(channel,
+                                            localHeaderOffset,
+                                            LOCAL_HEADER_SIZE);
+        if (localHeader.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+            throw new ZipException("Invalid local header of entry " + name);
+        }
+        final long dataOffset = localHeaderOffset + LOCAL_HEADER_SIZE
+                + (localHeader.getShort(26) & 0xFFFF)
+                + (localHeader.getShort(28) & 0xFFFF);
+        final ByteBuffer data = read(channel,
+                                     dataOffset,
+                                     (int) compressedSize);
+
+        final byte[] content;
+        if (method == STORED) {
+            content = data.array();
+        } else if (method == DEFLATED) {
+            content = inflate(data.array(),
+                              (int) size,
+                              name);
+        } else {
+            throw new ZipException("Unsupported compression method " + method + " of entry " + name);
+        }
+
+        final CRC32 checksum = new CRC32();
+        checksum.update(content);
+        if (checksum.getValue() != crc) {
+            throw new ZipException("Invalid CRC of entry " + name);
+        }
+        return content;
+    }
+
+    private static byte[] inflate(final byte[] compressed,
+                                  final int size,
+                                  final String name) throws ZipException {
+        final Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed);
+            final byte[] content = new byte[size];
+            int inflated = 0;
+            while (inflated < size && !inflater.finished()) {
+                final int count = inflater.inflate(content,
+                                                   inflated,
+                                                   size - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != size) {
+                throw new ZipException("Invalid size of entry " + name);
+            }
+            return content;
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data of entry " + name + ": " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int findEndOfCentralDirectory(final ByteBuffer tail) {
+        final int tailLength = tail.limit();
+        for (int i = tailLength - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE
+                    && i + EOCD_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tailLength) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(final ByteBuffer buffer,
+                                      final int position,
+                                      final int length,
+                                      final byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(position + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decode(final ByteBuffer buffer,
+                                 final int position,
+                                 final int length,
+                                 final Charset charset) {
+        final byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return new String(bytes,
+                          charset);
+    }
+
+    private static MappedByteBuffer map(final FileChannel channel,
+                                        final long position,
+                                        final int length) throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                                                    position,
+                                                    length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+
+    private static ByteBuffer read(final FileChannel channel,
+                                   final long position,
+                                   final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer,
+                             position + buffer.position()) < 0) {
+                throw new ZipException("Unexpected end of file");
+            }
+        }
+        return buffer;
+    }
+}
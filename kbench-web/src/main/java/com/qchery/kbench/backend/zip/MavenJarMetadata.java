@@ -0,0 +1,147 @@
+package com.qchery.kbench.backend.zip;
+
+import org.apache.commons.io.IOUtils;
+import org.guvnor.common.services.project.model.GAV;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * The Maven metadata of a JAR, ie., its META-INF/maven/&lt;groupId&gt;/&lt;artifactId&gt;/pom.xml and
+ * pom.properties entries. Both are captured with a single pass over the JAR, and the GAV is taken from
+ * pom.properties so the POM only has to be parsed if that is missing.
+ *
+ * @author Chery
+ * @date 2026/10/18 18:10
+ */
+public final class MavenJarMetadata {
+
+    static final String MAVEN_DIR = "META-INF/maven";
+
+    private final String pomXml;
+    private final String pomProperties;
+
+    MavenJarMetadata(final String pomXml,
+                     final String pomProperties) {
+        this.pomXml = pomXml;
+        this.pomProperties = pomProperties;
+    }
+
+    /**
+     * Reads the metadata from a JAR stream, stopping as soon as both entries are found. The stream is
+     * not closed.
+     */
+    public static MavenJarMetadata read(final InputStream jarStream) throws IOException {
+        // Not closed, that would close the caller's stream
+        final ZipInputStream zis = new ZipInputStream(jarStream);
+        String pomXml = null;
+        String pomProperties = null;
+        ZipEntry entry;
+        while ((pomXml == null || pomProperties == null) && (entry = zis.getNextEntry()) != null) {
+            final String name = entry.getName();
+            if (pomXml == null && isPomXml(name)) {
+                pomXml = IOUtils.toString(zis,
+                                          StandardCharsets.UTF_8);
+            } else if (pomProperties == null && isPomProperties(name)) {
+                pomProperties = IOUtils.toString(zis,
+                                                 StandardCharsets.UTF_8);
+            }
+        }
+        return new MavenJarMetadata(pomXml,
+                                    pomProperties);
+    }
+
+    /**
+     * Reads the metadata from a JAR file, looking the entries up in its central directory.
+     */
+    public static MavenJarMetadata read(final File jarFile) throws IOException {
+        final MavenJarMetadata metadata = CentralDirectoryReader.readMavenMetadata(jarFile);
+        return metadata != null ? metadata : readWithZipFile(jarFile);
+    }
+
+    private static MavenJarMetadata readWithZipFile(final File jarFile) throws IOException {
+        try (ZipFile zip = new ZipFile(jarFile)) {
+            String pomXml = null;
+            String pomProperties = null;
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                final ZipEntry entry = e.nextElement();
+                final String name = entry.getName();
+                if (pomXml == null && isPomXml(name)) {
+                    pomXml = readEntry(zip,
+                                       entry);
+                } else if (pomProperties == null && isPomProperties(name)) {
+                    pomProperties = readEntry(zip,
+                                              entry);
+                }
+            }
+            return new MavenJarMetadata(pomXml,
+                                        pomProperties);
+        }
+    }
+
+    private static String readEntry(final ZipFile zip,
+                                    final ZipEntry entry) throws IOException {
+        try (InputStream is = zip.getInputStream(entry)) {
+            return IOUtils.toString(is,
+                                    StandardCharsets.UTF_8);
+        }
+    }
+
+    static boolean isPomXml(final String name) {
+        return name.startsWith(MAVEN_DIR) && name.endsWith("pom.xml");
+    }
+
+    static boolean isPomProperties(final String name) {
+        return name.startsWith(MAVEN_DIR) && name.endsWith("pom.properties");
+    }
+
+    /**
+     * @return the content of pom.xml or null if there is none
+     */
+    public String getPomXml() {
+        return pomXml;
+    }
+
+    /**
+     * @return the content of pom.properties or null if there is none
+     */
+    public String getPomProperties() {
+        return pomProperties;
+    }
+
+    /**
+     * @return the GAV declared by pom.properties or null if there is no pom.properties or it is incomplete
+     */
+    public GAV getGAV() {
+        if (pomProperties == null) {
+            return null;
+        }
+        final Properties props = new Properties();
+        try {
+            props.load(new StringReader(pomProperties));
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        final String groupId = props.getProperty("groupId");
+        final String artifactId = props.getProperty("artifactId");
+        final String version = props.getProperty("version");
+        if (isNullOrEmpty(groupId) || isNullOrEmpty(artifactId) || isNullOrEmpty(version)) {
+            return null;
+        }
+        return new GAV(groupId,
+                       artifactId,
+                       version);
+    }
+
+    private static boolean isNullOrEmpty(final String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
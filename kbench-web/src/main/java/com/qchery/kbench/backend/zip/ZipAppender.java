@@ -0,0 +1,227 @@
+package com.qchery.kbench.backend.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Adds entries to an existing ZIP file in place. The new entries are written where the central directory
+ * starts, followed by the original central directory records, the records of the new entries and a new
+ * end of central directory record. The data of the existing entries is neither read nor copied, so the cost
+ * only depends on the size of the central directory.
+ * <p>
+ * Entries are stored uncompressed, which suits the small descriptors this is meant for. ZIP64 archives and
+ * archives which would outgrow the 32 bit offsets are not supported and left untouched.
+ *
+ * @author Chery
+ * @date 2026/10/18 14:55
+ */
+public class ZipAppender {
+
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+    private static final int VERSION = 10;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final int STORED = 0;
+    private static final long MAX_OFFSET = 0xFFFFFFFFL;
+    private static final int MAX_ENTRIES = 0xFFFF;
+
+    private ZipAppender() {
+    }
+
+    /**
+     * Appends the given entries to a ZIP file.
+     *
+     * @param zipFile the file to append to
+     * @param entries the content of the new entries by entry name
+     * @return true if the entries were appended, false if the file is not a ZIP file this can append to,
+     * in which case it was not modified
+     */
+    public static boolean append(final File zipFile,
+                                 final Map<String, byte[]> entries) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(zipFile,
+                                                         "rw")) {
+            final long eocdPosition = findEndOfCentralDirectory(raf);
+            if (eocdPosition < 0
+                    || (eocdPosition >= ZIP64_LOCATOR_SIZE && readInt(raf,
+                                                                      eocdPosition - ZIP64_LOCATOR_SIZE) == ZIP64_LOCATOR_SIGNATURE)) {
+                return false;
+            }
+
+            final ByteBuffer eocd = read(raf,
+                                         eocdPosition,
+                                         (int) (raf.length() - eocdPosition));
+            final int diskEntries = eocd.getShort(8) & 0xFFFF;
+            final int totalEntries = eocd.getShort(10) & 0xFFFF;
+            final long centralDirectorySize = eocd.getInt(12) & MAX_OFFSET;
+            final long centralDirectoryOffset = eocd.getInt(16) & MAX_OFFSET;
+            final int commentLength = eocd.getShort(20) & 0xFFFF;
+            if (diskEntries != totalEntries
+                    || totalEntries + entries.size() > MAX_ENTRIES
+                    || centralDirectoryOffset + centralDirectorySize != eocdPosition
+                    || EOCD_SIZE + commentLength > eocd.capacity()) {
+                return false;
+            }
+
+            final int dosTime = dosTime(System.currentTimeMillis());
+            final ByteArrayOutputStream localEntries = new ByteArrayOutputStream();
+            final ByteArrayOutputStream centralEntries = new ByteArrayOutputStream();
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                final byte[] content = entry.getValue();
+                final CRC32 crc = new CRC32();
+                crc.update(content);
+
+                final long offset = centralDirectoryOffset + localEntries.size();
+                writeHeader(localEntries,
+                            LOCAL_HEADER_SIGNATURE,
+                            -1,
+                            dosTime,
+                            crc.getValue(),
+                            content.length,
+                            name);
+                localEntries.write(content);
+                writeHeader(centralEntries,
+                            CENTRAL_HEADER_SIGNATURE,
+                            offset,
+                            dosTime,
+                            crc.getValue(),
+                            content.length,
+                            name);
+            }
+
+            final long newCentralDirectoryOffset = centralDirectoryOffset + localEntries.size();
+            final long newCentralDirectorySize = centralDirectorySize + centralEntries.size();
+            if (newCentralDirectoryOffset + newCentralDirectorySize > MAX_OFFSET) {
+                return false;
+            }
+
+            final byte[] centralDirectory = read(raf,
+                                                 centralDirectoryOffset,
+                                                 (int) centralDirectorySize).array();
+
+            final ByteBuffer newEocd = ByteBuffer.allocate(EOCD_SIZE + commentLength).order(ByteOrder.LITTLE_ENDIAN);
+            newEocd.putInt(EOCD_SIGNATURE)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) (totalEntries + entries.size()))
+                    .putShort((short) (totalEntries + entries.size()))
+                    .putInt((int) newCentralDirectorySize)
+                    .putInt((int) newCentralDirectoryOffset)
+                    .putShort((short) commentLength);
+            eocd.position(EOCD_SIZE);
+            eocd.limit(EOCD_SIZE + commentLength);
+            newEocd.put(eocd);
+
+            raf.seek(centralDirectoryOffset);
+            raf.write(localEntries.toByteArray());
+            raf.write(centralDirectory);
+            raf.write(centralEntries.toByteArray());
+            raf.write(newEocd.array());
+            raf.setLength(raf.getFilePointer());
+            return true;
+        }
+    }
+
+    /**
+     * @return the position of the end of central directory record or -1 if there is none
+     */
+    static long findEndOfCentralDirectory(final RandomAccessFile raf) throws IOException {
+        final long length = raf.length();
+        if (length < EOCD_SIZE) {
+            return -1;
+        }
+        final int tailLength = (int) Math.min(length,
+                                              EOCD_SIZE + MAX_COMMENT_SIZE);
+        final ByteBuffer tail = read(raf,
+                                     length - tailLength,
+                                     tailLength);
+        for (int i = tailLength - EOCD_SIZE; i >= 0; i--) {
+            if (tail.getInt(i) == EOCD_SIGNATURE
+                    && i + EOCD_SIZE + (tail.getShort(i + 20) & 0xFFFF) == tailLength) {
+                return length - tailLength + i;
+            }
+        }
+        return -1;
+    }
+
+    private static void writeHeader(final ByteArrayOutputStream out,
+                                    final int signature,
+                                    final long localHeaderOffset,
+                                    final int dosTime,
+                                    final long crc,
+                                    final int size,
+                                    final byte[] name) {
+        final boolean central = signature == CENTRAL_HEADER_SIGNATURE;
+        final ByteBuffer header = ByteBuffer.allocate(central ? 46 : 30).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(signature);
+        if (central) {
+            header.putShort((short) VERSION);
+        }
+        header.putShort((short) VERSION)
+                .putShort((short) UTF8_FLAG)
+                .putShort((short) STORED)
+                .putInt(dosTime)
+                .putInt((int) crc)
+                .putInt(size)
+                .putInt(size)
+                .putShort((short) name.length)
+                .putShort((short) 0);
+        if (central) {
+            header.putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putInt(0)
+                    .putInt((int) localHeaderOffset);
+        }
+        out.write(header.array(),
+                  0,
+                  header.capacity());
+        out.write(name,
+                  0,
+                  name.length);
+    }
+
+    private static ByteBuffer read(final RandomAccessFile raf,
+                                   final long position,
+                                   final int length) throws IOException {
+        final byte[] bytes = new byte[length];
+        raf.seek(position);
+        raf.readFully(bytes);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static int readInt(final RandomAccessFile raf,
+                               final long position) throws IOException {
+        return read(raf,
+                    position,
+                    4).getInt(0);
+    }
+
+    private static int dosTime(final long time) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(time);
+        final int year = calendar.get(Calendar.YEAR);
+        if (year < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (year - 1980) << 25
+                | (calendar.get(Calendar.MONTH) + 1) << 21
+                | calendar.get(Calendar.DAY_OF_MONTH) << 16
+                | calendar.get(Calendar.HOUR_OF_DAY) << 11
+                | calendar.get(Calendar.MINUTE) << 5
+                | calendar.get(Calendar.SECOND) >> 1;
+    }
+}
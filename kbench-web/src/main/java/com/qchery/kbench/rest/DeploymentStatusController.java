@@ -0,0 +1,44 @@
+package com.qchery.kbench.rest;
+
+import com.qchery.kbench.backend.deploy.DeploymentRegistry;
+import com.qchery.kbench.backend.deploy.DeploymentStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Reports the progress of deployments running in the background.
+ *
+ * @author Chery
+ * @date 2026/10/18 16:05
+ */
+@RestController
+@RequestMapping("/m2repo/deployments")
+public class DeploymentStatusController {
+
+    @Autowired
+    private DeploymentRegistry deploymentRegistry;
+
+    @GetMapping("{id}")
+    public ResponseEntity<DeploymentStatus> getDeployment(@PathVariable("id") String id) {
+        final DeploymentStatus status = deploymentRegistry.get(id);
+        if (status == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * @param gav the GAV to list the deployments of, ie., "org.kie:example:1.0", or all deployments if absent
+     */
+    @GetMapping
+    public List<DeploymentStatus> findDeployments(@RequestParam(value = "gav", required = false) String gav) {
+        return deploymentRegistry.find(gav);
+    }
+}
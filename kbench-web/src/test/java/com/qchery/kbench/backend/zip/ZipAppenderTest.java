@@ -0,0 +1,267 @@
+package com.qchery.kbench.backend.zip;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Chery
+ * @date 2026/10/18 22:10
+ */
+public class ZipAppenderTest {
+
+    private static final String MANIFEST = "META-INF/MANIFEST.MF";
+    private static final String POM_XML = "META-INF/maven/com.qchery/generated/pom.xml";
+    private static final String POM_PROPERTIES = "META-INF/maven/com.qchery/generated/pom.properties";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendsToAJar() throws IOException {
+        final Map<String, byte[]> original = originalEntries();
+        final File jar = writeJar(original,
+                                  ZipEntry.STORED,
+                                  null);
+
+        assertTrue(ZipAppender.append(jar,
+                                      appendedEntries()));
+
+        assertEntries(jar,
+                      original);
+    }
+
+    @Test
+    public void appendsToAJarWithAComment() throws IOException {
+        final Map<String, byte[]> original = originalEntries();
+        final File jar = writeJar(original,
+                                  ZipEntry.STORED,
+                                  "Built by kbench");
+
+        assertTrue(ZipAppender.append(jar,
+                                      appendedEntries()));
+
+        assertEntries(jar,
+                      original);
+        try (ZipFile zip = new ZipFile(jar)) {
+            assertEquals("Built by kbench",
+                         zip.getComment());
+        }
+    }
+
+    @Test
+    public void appendsToAJarWithDataDescriptors() throws IOException {
+        final Map<String, byte[]> original = originalEntries();
+        // Deflated entries are written with their sizes and CRC in a data descriptor after the data
+        final File jar = writeJar(original,
+                                  ZipEntry.DEFLATED,
+                                  null);
+
+        assertTrue(ZipAppender.append(jar,
+                                      appendedEntries()));
+
+        assertEntries(jar,
+                      original);
+    }
+
+    @Test
+    public void appendsTwice() throws IOException {
+        final Map<String, byte[]> original = originalEntries();
+        final File jar = writeJar(original,
+                                  ZipEntry.DEFLATED,
+                                  "Built by kbench");
+        final Map<String, byte[]> first = new LinkedHashMap<>();
+        first.put(POM_XML,
+                  appendedEntries().get(POM_XML));
+        final Map<String, byte[]> second = new LinkedHashMap<>();
+        second.put(POM_PROPERTIES,
+                   appendedEntries().get(POM_PROPERTIES));
+
+        assertTrue(ZipAppender.append(jar,
+                                      first));
+        assertTrue(ZipAppender.append(jar,
+                                      second));
+
+        assertEntries(jar,
+                      original);
+    }
+
+    @Test
+    public void leavesAFileWhichIsNoZipFileAsItIs() throws IOException {
+        final File file = folder.newFile("generated.jar");
+        final byte[] content = "no zip file".getBytes(StandardCharsets.UTF_8);
+        Files.write(file.toPath(),
+                    content);
+
+        assertFalse(ZipAppender.append(file,
+                                       appendedEntries()));
+
+        assertArrayEquals(content,
+                          Files.readAllBytes(file.toPath()));
+    }
+
+    private File writeJar(final Map<String, byte[]> entries,
+                          final int method,
+                          final String comment) throws IOException {
+        final File file = folder.newFile("generated.jar");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(file),
+                                                       manifest())) {
+            if (comment != null) {
+                jos.setComment(comment);
+            }
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                final JarEntry jarEntry = new JarEntry(entry.getKey());
+                jarEntry.setMethod(method);
+                if (method == ZipEntry.STORED) {
+                    jarEntry.setSize(entry.getValue().length);
+                    jarEntry.setCrc(crc(entry.getValue()));
+                }
+                jos.putNextEntry(jarEntry);
+                jos.write(entry.getValue());
+                jos.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Reads the JAR back through its central directory and through its local headers, which both have to hold
+     * the original and the appended entries in the order they were written.
+     */
+    private static void assertEntries(final File jar,
+                                      final Map<String, byte[]> original) throws IOException {
+        final Map<String, byte[]> expected = new LinkedHashMap<>(original);
+        expected.putAll(appendedEntries());
+
+        final List<String> names = new ArrayList<>();
+        names.add(MANIFEST);
+        names.addAll(expected.keySet());
+
+        final List<String> zipFileNames = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar)) {
+            for (Enumeration<? extends ZipEntry> e = zip.entries(); e.hasMoreElements(); ) {
+                final ZipEntry entry = e.nextElement();
+                zipFileNames.add(entry.getName());
+                final byte[] content;
+                try (InputStream is = zip.getInputStream(entry)) {
+                    content = toByteArray(is);
+                }
+                if (expected.containsKey(entry.getName())) {
+                    assertArrayEquals(entry.getName(),
+                                      expected.get(entry.getName()),
+                                      content);
+                }
+                assertEquals(entry.getName(),
+                             crc(content),
+                             entry.getCrc());
+            }
+        }
+        assertEquals(names,
+                     zipFileNames);
+
+        final List<String> jarInputStreamNames = new ArrayList<>();
+        try (JarInputStream jis = new JarInputStream(new FileInputStream(jar))) {
+            final Manifest manifest = jis.getManifest();
+            assertNotNull(manifest);
+            assertEquals("kbench",
+                         manifest.getMainAttributes().getValue(Attributes.Name.IMPLEMENTATION_TITLE));
+            for (JarEntry entry = jis.getNextJarEntry(); entry != null; entry = jis.getNextJarEntry()) {
+                jarInputStreamNames.add(entry.getName());
+                // The stream fails on a CRC which doesn't match the content read
+                final byte[] content = toByteArray(jis);
+                assertArrayEquals(entry.getName(),
+                                  expected.get(entry.getName()),
+                                  content);
+                assertEquals(entry.getName(),
+                             crc(content),
+                             entry.getCrc());
+            }
+        }
+        assertEquals(new ArrayList<>(expected.keySet()),
+                     jarInputStreamNames);
+    }
+
+    private static Map<String, byte[]> originalEntries() {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        for (int i = 0; i < 20; i++) {
+            final StringBuilder content = new StringBuilder();
+            for (int line = 0; line < 50; line++) {
+                content.append("class Generated").append(i).append(" line ").append(line).append('\n');
+            }
+            entries.put("com/qchery/generated/Generated" + i + ".class",
+                        content.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return entries;
+    }
+
+    private static Map<String, byte[]> appendedEntries() {
+        final Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put(POM_XML,
+                    ("<project>\n" +
+                            "  <modelVersion>4.0.0</modelVersion>\n" +
+                            "  <groupId>com.qchery</groupId>\n" +
+                            "  <artifactId>generated</artifactId>\n" +
+                            "  <version>1.0.0</version>\n" +
+                            "</project>\n").getBytes(StandardCharsets.UTF_8));
+        entries.put(POM_PROPERTIES,
+                    ("groupId=com.qchery\n" +
+                            "artifactId=generated\n" +
+                            "version=1.0.0\n").getBytes(StandardCharsets.UTF_8));
+        return entries;
+    }
+
+    private static Manifest manifest() {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION,
+                                         "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.IMPLEMENTATION_TITLE,
+                                         "kbench");
+        return manifest;
+    }
+
+    private static long crc(final byte[] content) {
+        final CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static byte[] toByteArray(final InputStream is) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[8192];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer,
+                      0,
+                      read);
+        }
+        return out.toByteArray();
+    }
+}